@@ -157,6 +157,19 @@ public abstract class AbstractCollection<AnyType> implements Collection<AnyType>
 		throw new UnsupportedOperationException();
 	}
 	
+	/**
+	 * Adds all items of another collection, one add at a time.
+	 * @param items the items to add.
+	 * @return true if this collection changed.
+	 */
+	public boolean addAll(Collection<? extends AnyType> items) {
+		boolean changed = false;
+		for(AnyType x : items)
+			if(add(x))
+				changed = true;
+		return changed;
+	}
+	
 	/**
 	 * Return true if this collection contains x.
 	 * If x is null, return false.
@@ -184,14 +197,50 @@ public abstract class AbstractCollection<AnyType> implements Collection<AnyType>
 			return false;
 		Iterator<AnyType> itr = iterator();
 		
-		while(itr.hasNext()) {
-			if(x.equals(itr.next()))
+		while(itr.hasNext())
+			if(x.equals(itr.next())) {
 				itr.remove();
-			return true;
-		}
+				return true;
+			}
 		return false;
 	}
 	
+	/**
+	 * Removes every item that is also in items, by one walk of the iterator.
+	 * @param items the items to remove.
+	 * @return true if this collection changed.
+	 */
+	public boolean removeAll(Collection<?> items) {
+		java.util.Objects.requireNonNull(items);
+		boolean changed = false;
+		Iterator<AnyType> itr = iterator();
+		
+		while(itr.hasNext())
+			if(items.contains(itr.next())) {
+				itr.remove();
+				changed = true;
+			}
+		return changed;
+	}
+	
+	/**
+	 * Removes every item that is not in items, by one walk of the iterator.
+	 * @param items the items to keep.
+	 * @return true if this collection changed.
+	 */
+	public boolean retainAll(Collection<?> items) {
+		java.util.Objects.requireNonNull(items);
+		boolean changed = false;
+		Iterator<AnyType> itr = iterator();
+		
+		while(itr.hasNext())
+			if(!items.contains(itr.next())) {
+				itr.remove();
+				changed = true;
+			}
+		return changed;
+	}
+	
 	/**
 	 * Obtains a primitive array view of the collections.
 	 * @return the primitive array view.
@@ -229,17 +278,106 @@ public abstract class AbstractCollection<AnyType> implements Collection<AnyType>
 		StringBuilder result = new StringBuilder("[");
 		
 		for(AnyType obj : this)
-			result.append(obj + " ");
+			result.append(obj).append(' ');
 		result.append("[");
 		
 		return result.toString();
 	}
 	
+	/**
+	 * Write every item to out, separated by spaces, and flush it.
+	 * Items are written one at a time, so no text of the whole collection is built.
+	 * @param out where to write.
+	 * @throws java.io.IOException if out does.
+	 */
+	public void writeTo(java.io.Writer out) throws java.io.IOException {
+		writeTo(out, " ");
+		out.flush();
+	}
+	
+	/**
+	 * Write every item to out, with separator between items.
+	 * @param out where to write.
+	 * @param separator what to write between 2 items.
+	 * @throws java.io.IOException if out does.
+	 */
+	public void writeTo(Appendable out, CharSequence separator) throws java.io.IOException {
+		writeTo(out, separator, Integer.MAX_VALUE, 0);
+	}
+	
+	/**
+	 * Write the first items and the last items to out, with separator between items.
+	 * If there are more than first + last items, the ones in between are left out
+	 * and "... k more ..." is written in their place.
+	 * This version walks past the left out items with the iterator;
+	 * subclasses that can reach the last items directly may override it.
+	 * @param out where to write.
+	 * @param separator what to write between 2 items.
+	 * @param first how many items to write from the front.
+	 * @param last how many items to write from the back.
+	 * @throws IllegalArgumentException if first or last is negative.
+	 * @throws java.io.IOException if out does.
+	 */
+	public void writeTo(Appendable out, CharSequence separator, int first, int last) throws java.io.IOException {
+		checkTruncation(first, last);
+		int theSize = size();
+		Iterator<AnyType> itr = iterator();
+		
+		// theSize - last can not overflow; theSize - first - last could.
+		if(first >= theSize - last) {
+			for(int i = 0; i < theSize; i++)
+				writeItem(out, separator, i, itr.next());
+			return;
+		}
+		
+		int skipped = theSize - first - last;
+		for(int i = 0; i < first; i++)
+			writeItem(out, separator, i, itr.next());
+		for(int i = 0; i < skipped; i++)
+			itr.next();
+		writeSkipped(out, separator, first, skipped);
+		for(int i = 0; i < last; i++)
+			writeItem(out, separator, first + 1 + i, itr.next());
+	}
+	
+	/**
+	 * Throw IllegalArgumentException unless first and last are both at least zero.
+	 */
+	protected static void checkTruncation(int first, int last) {
+		if(first < 0 || last < 0)
+			throw new IllegalArgumentException("first: " + first + "; last: " + last);
+	}
+	
+	/**
+	 * Write item number i of the output, after a separator unless it is the first.
+	 * A CharSequence is appended as it is, anything else as its toString.
+	 */
+	protected static void writeItem(Appendable out, CharSequence separator, int i, Object x) throws java.io.IOException {
+		if(i > 0)
+			out.append(separator);
+		if(x instanceof CharSequence)
+			out.append((CharSequence) x);
+		else
+			out.append(String.valueOf(x));
+	}
+	
+	/**
+	 * Write the "... k more ..." mark in place of skipped items, as item number i.
+	 */
+	protected static void writeSkipped(Appendable out, CharSequence separator, int i, int skipped) throws java.io.IOException {
+		if(i > 0)
+			out.append(separator);
+		out.append("... ").append(Integer.toString(skipped)).append(" more ...");
+	}
+	
 	/**
 	 * Return true if items in other collection are equal to items in this collection.
 	 * (same order, and same according to equals).
+	 * If both collections have their hashCode cached and the codes differ,
+	 * the items are not compared at all.
+	 * Subclasses may override it with a faster walk, keeping the same result.
 	 */
-	public final boolean equals(Object other) {
+	public boolean equals(Object other) {
 		
 		if(other == this)
 			return true;
@@ -249,6 +387,9 @@ public abstract class AbstractCollection<AnyType> implements Collection<AnyType>
 		Collection rhs = (Collection) other;
 		if(size() != rhs.size())
 			return false;
+		if(rhs instanceof AbstractCollection && hashCodeIsCached()
+				&& ((AbstractCollection) rhs).hashCodeIsCached() && hashCode() != rhs.hashCode())
+			return false;
 		
 		Iterator<AnyType> lhsItr = this.iterator();
 		Iterator rhsItr = rhs.iterator();
@@ -261,14 +402,24 @@ public abstract class AbstractCollection<AnyType> implements Collection<AnyType>
 	
 	/**
 	 * Return the hashCode.
+	 * Subclasses may override it to cache the code, or to compute it faster,
+	 * keeping the same result.
 	 */
-	public final int hashCode() {
+	public int hashCode() {
 		int hashVal = 1;
 		for(AnyType obj : this)
 			hashVal = 31 * hashVal + (obj == null ? 0 : obj.hashCode());
 		return hashVal;
 	}
 	 
+	/**
+	 * Return true if hashCode would return a cached code, without walking the items.
+	 * equals uses it to reject collections with different codes at once.
+	 */
+	protected boolean hashCodeIsCached() {
+		return false;
+	}
+	 
 	/**
 	 * Return true if 2 objects are equal;
 	 * works if objects can be null.
@@ -0,0 +1,486 @@
+package doublylinkedlist;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * = linked lists in parallel arrays =
+ *
+ * - A linked list does not need Node objects at all.
+ * - The classic array implementation, as used before languages had references,
+ *   keeps one array per field of the node and uses an index as the link:
+ *
+ *     data:  [  -  |  -  |  b  |  a  |  c  ]
+ *     next:  [  3  |  -  |  4  |  2  |  1  ]
+ *     prev:  [  -  |  4  |  3  |  0  |  2  ]
+ *              ^      ^
+ *         beginMarker endMarker
+ *
+ *   Following next from slot 0 gives 3, 2, 4 and then 1, the endMarker: the list a, b, c.
+ *
+ * - Slots 0 and 1 are the beginMarker and the endMarker,
+ *   so the algorithms are exactly those of LinkedList with p.next replaced by next[p].
+ * - A link costs 4 bytes instead of a reference, and there are no object headers,
+ *   so an item costs about 12 bytes besides the item itself.
+ * - The links of neighbouring slots sit next to each other in memory, which the cache likes.
+ *
+ * - When every slot is used, the 3 arrays are doubled, as in ArrayList.
+ * - A removed slot is pushed on a free chain, threaded through next,
+ *   and is reused by the next add.
+ *
+ */
+
+/**
+ * ArrayLinkedList class implements a doubly-linked list whose nodes are slots
+ * of parallel arrays.
+ */
+public class ArrayLinkedList<AnyType> extends AbstractCollection<AnyType> implements List<AnyType>, Queue<AnyType> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private static final int NIL = -1;
+	private static final int beginMarker = 0;
+	private static final int endMarker = 1;
+
+	private Object[] data;
+	private int[] prev;
+	private int[] next;
+	private int nextUnused;
+	private int freeList;
+
+	private int theSize;
+	private int modCount = 0;
+
+	/**
+	 * Construct an empty ArrayLinkedList.
+	 */
+	public ArrayLinkedList() {
+		data = new Object[DEFAULT_CAPACITY];
+		prev = new int[DEFAULT_CAPACITY];
+		next = new int[DEFAULT_CAPACITY];
+		clear();
+	}
+
+	/**
+	 * Construct an ArrayLinkedList with same items as another Collection.
+	 */
+	public ArrayLinkedList(Collection<? extends AnyType> other) {
+		this();
+		for (AnyType val : other)
+			add(val);
+	}
+
+	/**
+	 * Change the size of this collection to zero. The arrays keep their
+	 * capacity.
+	 */
+	public void clear() {
+		Arrays.fill(data, 0, nextUnused, null);
+		nextUnused = 2;
+		freeList = NIL;
+		next[beginMarker] = endMarker;
+		prev[endMarker] = beginMarker;
+
+		theSize = 0;
+		modCount++;
+	}
+
+	/**
+	 * Returns the number of items in this collection.
+	 *
+	 * @return the number of items in this collection.
+	 */
+	public int size() {
+		return theSize;
+	}
+
+	/**
+	 * Tests if some item is in this collection.
+	 *
+	 * @param x any object.
+	 * @return true if this collection contains an item equal to x.
+	 */
+	public boolean contains(Object x) {
+		return findPos(x) != NIL;
+	}
+
+	/**
+	 * Returns the slot of first item matching x in this collection, or NIL if
+	 * not found.
+	 */
+	private int findPos(Object x) {
+		for (int p = next[beginMarker]; p != endMarker; p = next[p])
+			if (x == null) {
+				if (data[p] == null)
+					return p;
+			} else if (x.equals(data[p]))
+				return p;
+
+		return NIL;
+	}
+
+	/**
+	 * Adds an item to this collection, at the end.
+	 *
+	 * @param x any object.
+	 * @return true.
+	 */
+	public boolean add(AnyType x) {
+		addLast(x);
+		return true;
+	}
+
+	/**
+	 * Adds an item to this collection, at specified position. Items at or after
+	 * that position are slid one position higher.
+	 *
+	 * @param x   any object.
+	 * @param idx position to add at.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(),
+	 *                                   inclusive.
+	 */
+	public void add(int idx, AnyType x) {
+		addBefore(getNode(idx, 0, size()), x);
+	}
+
+	/**
+	 * Adds x in a new slot linked just before slot p.
+	 */
+	private void addBefore(int p, AnyType x) {
+		int newNode = allocate();
+
+		data[newNode] = x;
+		prev[newNode] = prev[p];
+		next[newNode] = p;
+		next[prev[p]] = newNode;
+		prev[p] = newNode;
+		theSize++;
+		modCount++;
+	}
+
+	/**
+	 * Adds all items of another collection, in order, at position idx. The
+	 * items are copied out first, so items may be this list.
+	 *
+	 * @param idx   position to add at.
+	 * @param items the items to add.
+	 * @return true if this list changed.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(),
+	 *                                   inclusive.
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean addAll(int idx, Collection<? extends AnyType> items) {
+		if (idx < 0 || idx > size())
+			throw new IndexOutOfBoundsException("addAll index: " + idx + "; size: " + size());
+
+		Object[] arr = items.toArray(new Object[items.size()]);
+		for (int i = 0; i < arr.length; i++)
+			add(idx + i, (AnyType) arr[i]);
+		return arr.length != 0;
+	}
+
+	/**
+	 * Adds an item to this collection, at front. Other items are slid one position
+	 * higher.
+	 *
+	 * @param x any object.
+	 */
+	public void addFirst(AnyType x) {
+		addBefore(next[beginMarker], x);
+	}
+
+	/**
+	 * Adds an item to this collection, at end.
+	 *
+	 * @param x any object.
+	 */
+	public void addLast(AnyType x) {
+		addBefore(endMarker, x);
+	}
+
+	/**
+	 * Returns the front item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType element() {
+		return getFirst();
+	}
+
+	/**
+	 * Returns the first item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType getFirst() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return data(next[beginMarker]);
+	}
+
+	/**
+	 * Returns the last item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType getLast() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return data(prev[endMarker]);
+	}
+
+	/**
+	 * Returns the item at position idx.
+	 *
+	 * @param idx the index to search in.
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 */
+	public AnyType get(int idx) {
+		return data(getNode(idx));
+	}
+
+	/**
+	 * Changes the item at position idx.
+	 *
+	 * @param idx    the index to change.
+	 * @param newVal the new value.
+	 * @return the old value.
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 */
+	public AnyType set(int idx, AnyType newVal) {
+		int p = getNode(idx);
+		AnyType oldVal = data(p);
+
+		data[p] = newVal;
+		return oldVal;
+	}
+
+	/**
+	 * Removes the front item in the queue.
+	 *
+	 * @return the front item.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType remove() {
+		return removeFirst();
+	}
+
+	/**
+	 * Removes the first item in the list.
+	 *
+	 * @return the item was removed from the collection.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType removeFirst() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return removeNode(next[beginMarker]);
+	}
+
+	/**
+	 * Removes the last item in the list.
+	 *
+	 * @return the item was removed from the collection.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType removeLast() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return removeNode(prev[endMarker]);
+	}
+
+	/**
+	 * Removes an item from this collection.
+	 *
+	 * @param x any object.
+	 * @return true if this item was removed from the collection.
+	 */
+	public boolean remove(Object x) {
+		int pos = findPos(x);
+
+		if (pos == NIL)
+			return false;
+		else {
+			removeNode(pos);
+			return true;
+		}
+	}
+
+	/**
+	 * Removes an item from this collection.
+	 *
+	 * @param idx the index of the object.
+	 * @return the item was removed from the collection.
+	 */
+	public AnyType remove(int idx) {
+		return removeNode(getNode(idx));
+	}
+
+	/**
+	 * Gets the slot at position idx, which must range from 0 to size( )-1.
+	 */
+	private int getNode(int idx) {
+		return getNode(idx, 0, size() - 1);
+	}
+
+	/**
+	 * Gets the slot at position idx, which must range from lower to upper.
+	 *
+	 * @param idx   index to search at.
+	 * @param lower lowest valid index.
+	 * @param upper highest valid index.
+	 * @return slot corrsponding to idx.
+	 * @throws IndexOutOfBoundsException if idx is not between lower and upper,
+	 *                                   inclusive.
+	 */
+	private int getNode(int idx, int lower, int upper) {
+		int p;
+
+		if (idx < lower || idx > upper)
+			throw new IndexOutOfBoundsException("getNode index: " + idx + "; size: " + size());
+
+		if (idx < size() / 2) {
+			p = next[beginMarker];
+			for (int i = 0; i < idx; i++)
+				p = next[p];
+		} else {
+			p = endMarker;
+			for (int i = size(); i > idx; i--)
+				p = prev[p];
+		}
+
+		return p;
+	}
+
+	/**
+	 * Unlinks slot p, puts it on the free chain, and returns its item.
+	 */
+	private AnyType removeNode(int p) {
+		AnyType removed = data(p);
+
+		prev[next[p]] = prev[p];
+		next[prev[p]] = next[p];
+		data[p] = null;
+		next[p] = freeList;
+		freeList = p;
+		theSize--;
+		modCount++;
+
+		return removed;
+	}
+
+	/**
+	 * Returns an unused slot: the head of the free chain if there is one,
+	 * otherwise the next never used slot, doubling the arrays when they are
+	 * full.
+	 */
+	private int allocate() {
+		if (freeList != NIL) {
+			int p = freeList;
+			freeList = next[p];
+			return p;
+		}
+
+		if (nextUnused == data.length) {
+			if (data.length == Integer.MAX_VALUE)
+				throw new IllegalStateException("ArrayLinkedList is full");
+			int newCapacity = (int) Math.min(2L * data.length, Integer.MAX_VALUE);
+			data = Arrays.copyOf(data, newCapacity);
+			prev = Arrays.copyOf(prev, newCapacity);
+			next = Arrays.copyOf(next, newCapacity);
+		}
+		return nextUnused++;
+	}
+
+	@SuppressWarnings("unchecked")
+	private AnyType data(int p) {
+		return (AnyType) data[p];
+	}
+
+	/**
+	 * Obtains an Iterator object used to traverse the collection.
+	 *
+	 * @return an iterator positioned prior to the first element.
+	 */
+	public Iterator<AnyType> iterator() {
+		return new ArrayLinkedListIterator(0);
+	}
+
+	/**
+	 * Obtains a ListIterator object used to traverse the collection
+	 * bidirectionally.
+	 *
+	 * @return an iterator positioned prior to the requested element.
+	 * @param idx the index to start the iterator. Use size() to do complete reverse
+	 *            traversal. Use 0 to do complete forward traversal.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(), inclusive.
+	 */
+	public ListIterator<AnyType> listIteraor(int idx) {
+		return new ArrayLinkedListIterator(idx);
+	}
+
+	/**
+	 * This is the implementation of the ArrayLinkedListIterator. It is the
+	 * LinkedListIterator of LinkedList, holding slots instead of nodes.
+	 */
+	private class ArrayLinkedListIterator implements ListIterator<AnyType> {
+		private int current;
+		private int lastVisited = NIL;
+		private boolean lastMoveWasPrev = false;
+		private int expectedModCount = modCount;
+
+		public ArrayLinkedListIterator(int idx) {
+			current = getNode(idx, 0, size());
+		}
+
+		public boolean hasNext() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			return current != endMarker;
+		}
+
+		public AnyType next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+
+			AnyType nextItem = data(current);
+			lastVisited = current;
+			current = next[current];
+			lastMoveWasPrev = false;
+			return nextItem;
+		}
+
+		public void remove() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			if (lastVisited == NIL)
+				throw new IllegalStateException();
+
+			if (lastMoveWasPrev)
+				current = next[current];
+			removeNode(lastVisited);
+			lastVisited = NIL;
+			expectedModCount++;
+		}
+
+		public boolean hasPrevious() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			return current != next[beginMarker];
+		}
+
+		public AnyType previous() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			if (!hasPrevious())
+				throw new NoSuchElementException();
+
+			current = prev[current];
+			lastVisited = current;
+			lastMoveWasPrev = true;
+			return data(current);
+		}
+	}
+
+}
@@ -0,0 +1,485 @@
+package doublylinkedlist;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * = blocking queues =
+ *
+ * - A queue between two pipeline stages is empty when the consumer is faster,
+ *   and grows without limit when the producer is faster.
+ * - Polling isEmpty() in a loop burns a processor while waiting,
+ *   and sleeping between polls adds latency.
+ *
+ * - A bounded blocking queue has a fixed capacity:
+ *   - take waits until there is an item, put waits until there is room.
+ *   - offer and poll give up after a timeout.
+ * - A waiting thread sleeps on a condition of the lock,
+ *   and is woken by a signal when the other side changes the queue.
+ *
+ * - Moving items one at a time costs a lock and a wakeup per item.
+ * - The batch operations move many items under one lock acquisition, with one signal:
+ *   - drainTo takes up to max items into another collection.
+ *   - offerAll adds as many items of a batch as there is room for.
+ *   - putAll adds a whole batch, waiting for room as it goes.
+ *
+ * - The items are kept in a LinkedList whose node pool holds capacity nodes,
+ *   so a queue that is used steadily stops allocating nodes.
+ *
+ */
+
+/**
+ * BoundedBlockingQueue class implements a queue with a fixed capacity whose
+ * operations can wait for items or for room.
+ */
+public class BoundedBlockingQueue<AnyType> extends AbstractCollection<AnyType> implements Queue<AnyType> {
+
+	private final LinkedList<AnyType> items;
+	private final int capacity;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+
+	/**
+	 * Construct an empty BoundedBlockingQueue.
+	 *
+	 * @param capacity the most items the queue holds at once.
+	 * @throws IllegalArgumentException if capacity is not positive.
+	 */
+	public BoundedBlockingQueue(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("capacity: " + capacity);
+
+		this.capacity = capacity;
+		items = new LinkedList<AnyType>(capacity);
+	}
+
+	/**
+	 * Returns the number of items in this collection.
+	 *
+	 * @return the number of items in this collection.
+	 */
+	public int size() {
+		lock.lock();
+		try {
+			return items.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of items that can be added without waiting.
+	 *
+	 * @return the free room in the queue.
+	 */
+	public int remainingCapacity() {
+		lock.lock();
+		try {
+			return capacity - items.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Change the size of this collection to zero.
+	 */
+	public void clear() {
+		lock.lock();
+		try {
+			items.clear();
+			notFull.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Tests if some item is in this collection.
+	 *
+	 * @param x any object.
+	 * @return true if this collection contains an item equal to x.
+	 */
+	public boolean contains(Object x) {
+		lock.lock();
+		try {
+			return items.contains(x);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Adds an item to the back of the queue.
+	 *
+	 * @param x any object.
+	 * @return true.
+	 * @throws IllegalStateException if the queue is full.
+	 */
+	public boolean add(AnyType x) {
+		if (!offer(x))
+			throw new IllegalStateException("queue full");
+		return true;
+	}
+
+	/**
+	 * Adds an item to the back of the queue, if there is room.
+	 *
+	 * @param x any object.
+	 * @return true if x was added, false if the queue is full.
+	 */
+	public boolean offer(AnyType x) {
+		lock.lock();
+		try {
+			if (items.size() == capacity)
+				return false;
+			enqueue(x);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Adds an item to the back of the queue, waiting up to timeout for room.
+	 *
+	 * @param x       any object.
+	 * @param timeout how long to wait, in units of unit.
+	 * @param unit    the unit of timeout.
+	 * @return true if x was added, false if the time ran out first.
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	public boolean offer(AnyType x, long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while (items.size() == capacity) {
+				if (nanos <= 0)
+					return false;
+				nanos = notFull.awaitNanos(nanos);
+			}
+			enqueue(x);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Adds an item to the back of the queue, waiting for room.
+	 *
+	 * @param x any object.
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	public void put(AnyType x) throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (items.size() == capacity)
+				notFull.await();
+			enqueue(x);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Adds as many items of batch, in order, as there is room for, under one
+	 * lock acquisition and with one signal.
+	 *
+	 * @param batch the items to add.
+	 * @return the number of items added, from the start of batch.
+	 */
+	public int offerAll(Collection<? extends AnyType> batch) {
+		Iterator<? extends AnyType> itr = batch.iterator();
+		lock.lock();
+		try {
+			int added = 0;
+			while (itr.hasNext() && items.size() < capacity) {
+				items.addLast(itr.next());
+				added++;
+			}
+			signal(notEmpty, added);
+			return added;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Adds all items of batch, in order, waiting for room as needed. Whenever
+	 * there is room, every item that fits is added under the same lock
+	 * acquisition, with one signal.
+	 *
+	 * @param batch the items to add.
+	 * @throws InterruptedException if interrupted while waiting; the items
+	 *                              added before that stay in the queue.
+	 */
+	public void putAll(Collection<? extends AnyType> batch) throws InterruptedException {
+		Iterator<? extends AnyType> itr = batch.iterator();
+		lock.lockInterruptibly();
+		try {
+			while (itr.hasNext()) {
+				while (items.size() == capacity)
+					notFull.await();
+
+				int added = 0;
+				while (itr.hasNext() && items.size() < capacity) {
+					items.addLast(itr.next());
+					added++;
+				}
+				signal(notEmpty, added);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the front item in the queue.
+	 *
+	 * @throws NoSuchElementException if the queue is empty.
+	 */
+	public AnyType element() {
+		lock.lock();
+		try {
+			return items.getFirst();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the front item in the queue, or null if the queue is empty.
+	 */
+	public AnyType peek() {
+		lock.lock();
+		try {
+			return items.isEmpty() ? null : items.getFirst();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the front item in the queue.
+	 *
+	 * @return the front item.
+	 * @throws NoSuchElementException if the queue is empty.
+	 */
+	public AnyType remove() {
+		lock.lock();
+		try {
+			if (items.isEmpty())
+				throw new NoSuchElementException();
+			return dequeue();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the front item in the queue, if there is one.
+	 *
+	 * @return the front item, or null if the queue is empty.
+	 */
+	public AnyType poll() {
+		lock.lock();
+		try {
+			return items.isEmpty() ? null : dequeue();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the front item in the queue, waiting up to timeout for one.
+	 *
+	 * @param timeout how long to wait, in units of unit.
+	 * @param unit    the unit of timeout.
+	 * @return the front item, or null if the time ran out first.
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	public AnyType poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while (items.isEmpty()) {
+				if (nanos <= 0)
+					return null;
+				nanos = notEmpty.awaitNanos(nanos);
+			}
+			return dequeue();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the front item in the queue, waiting for one.
+	 *
+	 * @return the front item.
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	public AnyType take() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (items.isEmpty())
+				notEmpty.await();
+			return dequeue();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes all items from the front of the queue and adds them, in order, to
+	 * c, under one lock acquisition and with one signal.
+	 *
+	 * @param c the collection to add to.
+	 * @return the number of items moved.
+	 * @throws IllegalArgumentException if c is this queue.
+	 */
+	public int drainTo(Collection<? super AnyType> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Removes up to max items from the front of the queue and adds them, in
+	 * order, to c, under one lock acquisition and with one signal.
+	 *
+	 * @param c   the collection to add to.
+	 * @param max the most items to move.
+	 * @return the number of items moved.
+	 * @throws IllegalArgumentException if c is this queue.
+	 * @throws RuntimeException         whatever c.add throws; the item it
+	 *                                  refused stays in the queue.
+	 */
+	public int drainTo(Collection<? super AnyType> c, int max) {
+		if (c == this)
+			throw new IllegalArgumentException("cannot drain a queue into itself");
+
+		lock.lock();
+		int moved = 0;
+		try {
+			// An item leaves the queue only once c has taken it.
+			while (moved < max && !items.isEmpty()) {
+				c.add(items.getFirst());
+				items.removeFirst();
+				moved++;
+			}
+			return moved;
+		} finally {
+			signal(notFull, moved);
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes an item from this collection.
+	 *
+	 * @param x any object.
+	 * @return true if this item was removed from the collection.
+	 */
+	public boolean remove(Object x) {
+		lock.lock();
+		try {
+			if (!items.remove(x))
+				return false;
+			notFull.signal();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Obtains a primitive array view of the collection.
+	 *
+	 * @return the primitive array view.
+	 */
+	public Object[] toArray() {
+		lock.lock();
+		try {
+			return items.toArray();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Obtains a primitive array view of the collection.
+	 *
+	 * @param arr the array to fill, if it is large enough.
+	 * @return the primitive array view.
+	 */
+	public <OtherType> OtherType[] toArray(OtherType[] arr) {
+		lock.lock();
+		try {
+			return items.toArray(arr);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Obtains an Iterator over a copy of the items, taken under the lock. It
+	 * never throws ConcurrentModificationException; remove is not supported.
+	 *
+	 * @return an iterator positioned prior to the first element.
+	 */
+	public Iterator<AnyType> iterator() {
+		final Object[] snapshot = toArray();
+
+		return new Iterator<AnyType>() {
+			private int current = 0;
+
+			public boolean hasNext() {
+				return current < snapshot.length;
+			}
+
+			@SuppressWarnings("unchecked")
+			public AnyType next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				return (AnyType) snapshot[current++];
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Adds x at the back and wakes one taker; the lock must be held.
+	 */
+	private void enqueue(AnyType x) {
+		items.addLast(x);
+		notEmpty.signal();
+	}
+
+	/**
+	 * Removes the front item and wakes one putter; the lock must be held.
+	 */
+	private AnyType dequeue() {
+		AnyType x = items.removeFirst();
+		notFull.signal();
+		return x;
+	}
+
+	/**
+	 * Wakes the waiters for count new items (or count free places), with a
+	 * single call.
+	 */
+	private static void signal(Condition cond, int count) {
+		if (count == 1)
+			cond.signal();
+		else if (count > 1)
+			cond.signalAll();
+	}
+
+}
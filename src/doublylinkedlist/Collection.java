@@ -186,11 +186,43 @@ public interface Collection<AnyType> extends Iterable<AnyType>, java.io.Serializ
 	 */
 	boolean add(AnyType x);
 	
+	/**
+	 * Adds all items of another collection to this collection.
+	 */
+	boolean addAll(Collection<? extends AnyType> items);
+	
 	/**
 	 * Removes an item from this collection.
 	 */
 	boolean remove(Object x);
 	
+	/**
+	 * Removes every item that is also in items.
+	 */
+	boolean removeAll(Collection<?> items);
+	
+	/**
+	 * Removes every item that is not in items.
+	 */
+	boolean retainAll(Collection<?> items);
+	
+	/**
+	 * Removes every item for which filter returns true, through the iterator.
+	 * Implementations that can unlink in one pass should override it.
+	 */
+	default boolean removeIf(java.util.function.Predicate<? super AnyType> filter) {
+		java.util.Objects.requireNonNull(filter);
+		boolean changed = false;
+		Iterator<AnyType> itr = iterator();
+		
+		while(itr.hasNext())
+			if(filter.test(itr.next())) {
+				itr.remove();
+				changed = true;
+			}
+		return changed;
+	}
+	
 	/**
 	 * Change the size of this collection to zero.
 	 */
@@ -205,6 +237,36 @@ public interface Collection<AnyType> extends Iterable<AnyType>, java.io.Serializ
 	 * Obtains a primitive array view of the collection.
 	 */
 	<OtherType> OtherType [] toArray(OtherType[] arr);
+	
+	/**
+	 * Obtains a primitive array view of the collection, in an array made by generator.
+	 * Implementations that know their size should ask generator for an array of that size.
+	 */
+	default <OtherType> OtherType [] toArray(java.util.function.IntFunction<OtherType[]> generator) {
+		return toArray(generator.apply(0));
+	}
+	
+	/**
+	 * Obtains a Spliterator over the collection that knows its size.
+	 * Implementations that can split themselves better should override it.
+	 */
+	default java.util.Spliterator<AnyType> spliterator() {
+		return java.util.Spliterators.spliterator(iterator(), size(), java.util.Spliterator.ORDERED);
+	}
+	
+	/**
+	 * Obtains a sequential Stream over the collection.
+	 */
+	default java.util.stream.Stream<AnyType> stream() {
+		return java.util.stream.StreamSupport.stream(spliterator(), false);
+	}
+	
+	/**
+	 * Obtains a possibly parallel Stream over the collection.
+	 */
+	default java.util.stream.Stream<AnyType> parallelStream() {
+		return java.util.stream.StreamSupport.stream(spliterator(), true);
+	}
 
 }
  
\ No newline at end of file
@@ -0,0 +1,754 @@
+package doublylinkedlist;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * = hand-over-hand locking =
+ *
+ * - One lock around a whole LinkedList lets only one thread at a time use it,
+ *   even when the threads work on different parts of the list.
+ *
+ * - With fine-grained locking every node has its own lock.
+ * - A thread walks the list by lock coupling ("hand-over-hand"):
+ *   it locks the next node before it unlocks the current one,
+ *   so no other thread can change the link it is about to follow.
+ *
+ *     lock(beginMarker)
+ *     lock(a)  unlock(beginMarker)
+ *     lock(b)  unlock(a)
+ *     ...
+ *
+ * - Since every thread takes the locks in list order, there can be no deadlock.
+ * - Threads walking to different positions follow each other down the list
+ *   like a pipeline, and then work in their own region at the same time.
+ *
+ * - Which locks protect which links:
+ *   - p.next is only written by a thread that holds p's lock.
+ *   - p.prev is only written by a thread that holds the lock of p's predecessor.
+ *   - So add after p needs only p's lock,
+ *     and remove of p needs the locks of its predecessor and of p itself.
+ *
+ * - The beginMarker and the endMarker are nodes as in LinkedList;
+ *   a node also records that it was removed, so that the shortcuts that
+ *   lock the last node directly can check that it is still in the list.
+ *
+ * - Iterators are weakly consistent and never throw ConcurrentModificationException.
+ *   A removed node keeps its next link, so an iterator standing on it can still move on.
+ *
+ */
+
+/**
+ * ConcurrentLinkedList class implements a doubly-linked list that several
+ * threads can change at once, using a lock per node.
+ */
+public class ConcurrentLinkedList<AnyType> extends AbstractCollection<AnyType> implements List<AnyType>, Queue<AnyType> {
+
+	private static final long serialVersionUID = 1L;
+
+	// Nothing is serialized by default; writeObject writes the size and the
+	// items, and readObject rebuilds the nodes.
+	private transient LockNode<AnyType> beginMarker;
+	private transient LockNode<AnyType> endMarker;
+	private transient AtomicInteger theSize;
+
+	/**
+	 * Construct an empty ConcurrentLinkedList.
+	 */
+	public ConcurrentLinkedList() {
+		init();
+	}
+
+	/**
+	 * Makes the markers of an empty list.
+	 */
+	private void init() {
+		beginMarker = new LockNode<AnyType>(null, null, null);
+		endMarker = new LockNode<AnyType>(null, beginMarker, null);
+		beginMarker.next = endMarker;
+		theSize = new AtomicInteger();
+	}
+
+	/**
+	 * Writes the size and then the items, instead of the graph of nodes.
+	 *
+	 * 1. lock every node, in list order, from the beginMarker to the last node;
+	 *    with all of them held no other thread can change the list,
+	 *    so the items copied on the way are the list at one moment
+	 * 2. unlock them again, in the same order
+	 * 3. write the copy, holding no lock
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		java.util.ArrayList<AnyType> items = new java.util.ArrayList<AnyType>();
+		LockNode<AnyType> p = beginMarker;
+		p.lock.lock();
+		try {
+			for (LockNode<AnyType> nxt = nextOf(p); nxt != endMarker; nxt = nextOf(p)) {
+				nxt.lock.lock();
+				p = nxt;
+				items.add(p.data);
+			}
+		} finally {
+			LockNode<AnyType> last = p;
+			for (p = beginMarker;; p = nextOf(p)) {
+				p.lock.unlock();
+				if (p == last)
+					break;
+			}
+		}
+
+		out.defaultWriteObject();
+		out.writeInt(items.size());
+		for (AnyType x : items)
+			out.writeObject(x);
+	}
+
+	/**
+	 * Reads what writeObject wrote, linking each item behind the last one.
+	 * Nobody else can see the list yet, so no lock is taken.
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		int size = in.readInt();
+		if (size < 0)
+			throw new StreamCorruptedException("negative size: " + size);
+
+		init();
+		for (int i = 0; i < size; i++)
+			linkAfter(prevOf(endMarker), (AnyType) in.readObject());
+	}
+
+	/**
+	 * Construct a ConcurrentLinkedList with same items as another Collection.
+	 */
+	public ConcurrentLinkedList(Collection<? extends AnyType> other) {
+		this();
+		addAll(0, other);
+	}
+
+	/**
+	 * Returns the number of items in this collection.
+	 *
+	 * @return the number of items in this collection.
+	 */
+	public int size() {
+		return theSize.get();
+	}
+
+	/**
+	 * Removes the items one at a time from the front, while holding the
+	 * beginMarker so that no new walk can start.
+	 */
+	public void clear() {
+		beginMarker.lock.lock();
+		try {
+			LockNode<AnyType> curr;
+			while ((curr = nextOf(beginMarker)) != endMarker) {
+				curr.lock.lock();
+				unlink(beginMarker, curr);
+				curr.lock.unlock();
+			}
+		} finally {
+			beginMarker.lock.unlock();
+		}
+	}
+
+	/**
+	 * Tests if some item is in this collection.
+	 *
+	 * @param x any object.
+	 * @return true if this collection contains an item equal to x.
+	 */
+	public boolean contains(Object x) {
+		LockNode<AnyType> p = beginMarker;
+		p.lock.lock();
+		try {
+			for (;;) {
+				LockNode<AnyType> nxt = nextOf(p);
+				nxt.lock.lock();
+				p.lock.unlock();
+				p = nxt;
+				if (p == endMarker)
+					return false;
+				if (x == null ? p.data == null : x.equals(p.data))
+					return true;
+			}
+		} finally {
+			p.lock.unlock();
+		}
+	}
+
+	/**
+	 * Adds an item to this collection, at the end.
+	 *
+	 * @param x any object.
+	 * @return true.
+	 */
+	public boolean add(AnyType x) {
+		addLast(x);
+		return true;
+	}
+
+	/**
+	 * Adds an item to this collection, at specified position. Items at or after
+	 * that position are slid one position higher.
+	 *
+	 * @param x   any object.
+	 * @param idx position to add at.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(),
+	 *                                   inclusive, when the walk gets there.
+	 */
+	public void add(int idx, AnyType x) {
+		LockNode<AnyType> p = lockAt(idx - 1, idx);
+		try {
+			linkAfter(p, x);
+		} finally {
+			p.lock.unlock();
+		}
+	}
+
+	/**
+	 * Adds all items of another collection, in order, at position idx, while
+	 * holding a single lock. The items are copied out first, so items may be
+	 * this list.
+	 *
+	 * @param idx   position to add at.
+	 * @param items the items to add.
+	 * @return true if this list changed.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(),
+	 *                                   inclusive, when the walk gets there.
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean addAll(int idx, Collection<? extends AnyType> items) {
+		Object[] arr = items.toArray(new Object[items.size()]);
+		LockNode<AnyType> p = lockAt(idx - 1, idx);
+		try {
+			for (Object x : arr)
+				p = linkAfter(p, (AnyType) x);
+		} finally {
+			p.lock.unlock();
+		}
+		return arr.length != 0;
+	}
+
+	/**
+	 * Adds an item to this collection, at front. Other items are slid one position
+	 * higher.
+	 *
+	 * @param x any object.
+	 */
+	public void addFirst(AnyType x) {
+		add(0, x);
+	}
+
+	/**
+	 * Adds an item to this collection, at end, by locking the last node
+	 * directly instead of walking to it.
+	 *
+	 * @param x any object.
+	 */
+	public void addLast(AnyType x) {
+		LockNode<AnyType> p = lockLast();
+		try {
+			linkAfter(p, x);
+		} finally {
+			p.lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the front item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType element() {
+		return getFirst();
+	}
+
+	/**
+	 * Returns the first item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType getFirst() {
+		LockNode<AnyType> p = lockAt(-1, 0);
+		try {
+			LockNode<AnyType> first = nextOf(p);
+			if (first == endMarker)
+				throw new NoSuchElementException();
+			first.lock.lock();
+			AnyType x = first.data;
+			first.lock.unlock();
+			return x;
+		} finally {
+			p.lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the last item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType getLast() {
+		LockNode<AnyType> p = lockLast();
+		try {
+			if (p == beginMarker)
+				throw new NoSuchElementException();
+			return p.data;
+		} finally {
+			p.lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the item at position idx.
+	 *
+	 * @param idx the index to search in.
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 */
+	public AnyType get(int idx) {
+		if (idx < 0)
+			throw new IndexOutOfBoundsException("index: " + idx + "; size: " + size());
+
+		LockNode<AnyType> p = lockAt(idx, idx);
+		try {
+			return p.data;
+		} finally {
+			p.lock.unlock();
+		}
+	}
+
+	/**
+	 * Changes the item at position idx.
+	 *
+	 * @param idx    the index to change.
+	 * @param newVal the new value.
+	 * @return the old value.
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 */
+	public AnyType set(int idx, AnyType newVal) {
+		if (idx < 0)
+			throw new IndexOutOfBoundsException("index: " + idx + "; size: " + size());
+
+		LockNode<AnyType> p = lockAt(idx, idx);
+		try {
+			AnyType oldVal = p.data;
+			p.data = newVal;
+			return oldVal;
+		} finally {
+			p.lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the front item in the queue.
+	 *
+	 * @return the front item.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType remove() {
+		return removeFirst();
+	}
+
+	/**
+	 * Removes the first item in the list.
+	 *
+	 * @return the item was removed from the collection.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType removeFirst() {
+		LockNode<AnyType> pred = lockAt(-1, 0);
+		try {
+			LockNode<AnyType> curr = nextOf(pred);
+			if (curr == endMarker)
+				throw new NoSuchElementException();
+			return unlinkLocked(pred, curr);
+		} finally {
+			pred.lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the last item in the list, by locking the last 2 nodes directly
+	 * instead of walking to them.
+	 *
+	 * @return the item was removed from the collection.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType removeLast() {
+		for (;;) {
+			LockNode<AnyType> curr = prevOf(endMarker);
+			if (curr == beginMarker) {
+				beginMarker.lock.lock();
+				boolean empty = beginMarker.next == endMarker;
+				beginMarker.lock.unlock();
+				if (empty)
+					throw new NoSuchElementException();
+				continue;
+			}
+
+			LockNode<AnyType> pred = prevOf(curr);
+			pred.lock.lock();
+			curr.lock.lock();
+			try {
+				// Both stay locked until curr is unlinked, so no addLast can link after it.
+				if (!pred.removed && pred.next == curr && !curr.removed && curr.next == endMarker) {
+					unlink(pred, curr);
+					return curr.data;
+				}
+			} finally {
+				curr.lock.unlock();
+				pred.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Removes an item from this collection.
+	 *
+	 * @param x any object.
+	 * @return true if this item was removed from the collection.
+	 */
+	public boolean remove(Object x) {
+		LockNode<AnyType> pred = beginMarker;
+		pred.lock.lock();
+		try {
+			for (LockNode<AnyType> curr = nextOf(pred); curr != endMarker; curr = nextOf(pred)) {
+				curr.lock.lock();
+				if (x == null ? curr.data == null : x.equals(curr.data)) {
+					unlink(pred, curr);
+					curr.lock.unlock();
+					return true;
+				}
+				pred.lock.unlock();
+				pred = curr;
+			}
+			return false;
+		} finally {
+			pred.lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes an item from this collection.
+	 *
+	 * @param idx the index of the object.
+	 * @return the item was removed from the collection.
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 */
+	public AnyType remove(int idx) {
+		LockNode<AnyType> pred = lockAt(idx - 1, idx);
+		try {
+			LockNode<AnyType> curr = nextOf(pred);
+			if (curr == endMarker)
+				throw new IndexOutOfBoundsException("index: " + idx + "; size: " + size());
+			return unlinkLocked(pred, curr);
+		} finally {
+			pred.lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes node target, if it is still in the list.
+	 */
+	private void removeNode(LockNode<AnyType> target) {
+		LockNode<AnyType> pred = beginMarker;
+		pred.lock.lock();
+		try {
+			for (LockNode<AnyType> curr = nextOf(pred); curr != endMarker; curr = nextOf(pred)) {
+				curr.lock.lock();
+				if (curr == target) {
+					unlink(pred, curr);
+					curr.lock.unlock();
+					return;
+				}
+				pred.lock.unlock();
+				pred = curr;
+			}
+		} finally {
+			pred.lock.unlock();
+		}
+	}
+
+	/**
+	 * Obtains a primitive array view of the collection, as seen by one walk.
+	 *
+	 * @return the primitive array view.
+	 */
+	public Object[] toArray() {
+		return snapshot().toArray();
+	}
+
+	/**
+	 * Obtains a primitive array view of the collection, as seen by one walk.
+	 *
+	 * @param arr the array to fill, if it is large enough.
+	 * @return the primitive array view.
+	 */
+	public <OtherType> OtherType[] toArray(OtherType[] arr) {
+		return snapshot().toArray(arr);
+	}
+
+	private java.util.ArrayList<AnyType> snapshot() {
+		java.util.ArrayList<AnyType> items = new java.util.ArrayList<AnyType>();
+		for (Iterator<AnyType> itr = iterator(); itr.hasNext();)
+			items.add(itr.next());
+		return items;
+	}
+
+	/**
+	 * Walks hand-over-hand to position pos, where -1 is the beginMarker, and
+	 * returns that node still locked.
+	 *
+	 * @param pos the position to lock.
+	 * @param idx the index the caller was given, for the error message.
+	 * @throws IndexOutOfBoundsException if the list ends before pos.
+	 */
+	private LockNode<AnyType> lockAt(int pos, int idx) {
+		if (pos < -1)
+			throw new IndexOutOfBoundsException("index: " + idx + "; size: " + size());
+
+		LockNode<AnyType> p = beginMarker;
+		p.lock.lock();
+		for (int i = -1; i < pos; i++) {
+			LockNode<AnyType> nxt = nextOf(p);
+			if (nxt == endMarker) {
+				p.lock.unlock();
+				throw new IndexOutOfBoundsException("index: " + idx + "; size: " + size());
+			}
+			nxt.lock.lock();
+			p.lock.unlock();
+			p = nxt;
+		}
+		return p;
+	}
+
+	/**
+	 * Locks and returns the node before the endMarker (the beginMarker if the
+	 * list is empty). The endMarker's prev link is read without a lock, so the
+	 * node is checked, once locked, to be still the last one.
+	 */
+	private LockNode<AnyType> lockLast() {
+		for (;;) {
+			LockNode<AnyType> p = prevOf(endMarker);
+			p.lock.lock();
+			if (!p.removed && p.next == endMarker)
+				return p;
+			p.lock.unlock();
+		}
+	}
+
+	/**
+	 * Links a new node holding x after the locked node p.
+	 *
+	 * @return the new node.
+	 */
+	private LockNode<AnyType> linkAfter(LockNode<AnyType> p, AnyType x) {
+		LockNode<AnyType> newNode = new LockNode<AnyType>(x, p, p.next);
+		p.next.prev = newNode;
+		p.next = newNode;
+		theSize.incrementAndGet();
+		return newNode;
+	}
+
+	/**
+	 * Locks curr, unlinks it from behind the locked node pred, and returns its
+	 * item.
+	 */
+	private AnyType unlinkLocked(LockNode<AnyType> pred, LockNode<AnyType> curr) {
+		curr.lock.lock();
+		try {
+			unlink(pred, curr);
+			return curr.data;
+		} finally {
+			curr.lock.unlock();
+		}
+	}
+
+	/**
+	 * Unlinks curr from behind pred; both must be locked. curr keeps its next
+	 * link for iterators standing on it.
+	 */
+	private void unlink(LockNode<AnyType> pred, LockNode<AnyType> curr) {
+		pred.next = curr.next;
+		curr.next.prev = pred;
+		curr.removed = true;
+		theSize.decrementAndGet();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <AnyType> LockNode<AnyType> nextOf(Node<AnyType> p) {
+		return (LockNode<AnyType>) p.next;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <AnyType> LockNode<AnyType> prevOf(Node<AnyType> p) {
+		return (LockNode<AnyType>) p.prev;
+	}
+
+	/**
+	 * Obtains a weakly consistent Iterator object used to traverse the
+	 * collection.
+	 *
+	 * @return an iterator positioned prior to the first element.
+	 */
+	public Iterator<AnyType> iterator() {
+		return new ConcurrentListIterator();
+	}
+
+	/**
+	 * Obtains a Spliterator over the weakly consistent iterator. It does not
+	 * claim to know its size, since other threads may add or remove items
+	 * while it walks.
+	 *
+	 * @return an ORDERED and CONCURRENT spliterator; items may be null.
+	 */
+	public Spliterator<AnyType> spliterator() {
+		return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.CONCURRENT);
+	}
+
+	/**
+	 * Obtains a ListIterator over a snapshot of the nodes, taken by one walk.
+	 * Walking backwards through live prev links would take the locks out of
+	 * order. remove removes the node from the live list if it is still there.
+	 *
+	 * @return an iterator positioned prior to the requested element.
+	 * @param idx the index to start the iterator. Use size() to do complete reverse
+	 *            traversal. Use 0 to do complete forward traversal.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and the size
+	 *                                   of the snapshot, inclusive.
+	 */
+	public ListIterator<AnyType> listIteraor(int idx) {
+		return new SnapshotListIterator(idx);
+	}
+
+	/**
+	 * The doubly-linked list node, with its own lock.
+	 */
+	private static class LockNode<AnyType> extends Node<AnyType> {
+		final ReentrantLock lock = new ReentrantLock();
+		boolean removed;
+
+		LockNode(AnyType d, Node<AnyType> p, Node<AnyType> n) {
+			super(d, p, n);
+		}
+	}
+
+	/**
+	 * This is the implementation of the ConcurrentListIterator. It holds no
+	 * lock between calls; it locks one node to read its item and next link.
+	 */
+	private class ConcurrentListIterator implements Iterator<AnyType> {
+		private LockNode<AnyType> current;
+		private LockNode<AnyType> lastVisited = null;
+
+		public ConcurrentListIterator() {
+			beginMarker.lock.lock();
+			current = nextOf(beginMarker);
+			beginMarker.lock.unlock();
+		}
+
+		public boolean hasNext() {
+			return current != endMarker;
+		}
+
+		public AnyType next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+
+			current.lock.lock();
+			AnyType nextItem = current.data;
+			LockNode<AnyType> nxt = nextOf(current);
+			current.lock.unlock();
+
+			lastVisited = current;
+			current = nxt;
+			return nextItem;
+		}
+
+		public void remove() {
+			if (lastVisited == null)
+				throw new IllegalStateException();
+
+			removeNode(lastVisited);
+			lastVisited = null;
+		}
+	}
+
+	/**
+	 * This is the implementation of the SnapshotListIterator. It moves over an
+	 * array of the nodes that were in the list when it was created.
+	 */
+	private class SnapshotListIterator implements ListIterator<AnyType> {
+		private final java.util.ArrayList<LockNode<AnyType>> nodes = new java.util.ArrayList<LockNode<AnyType>>();
+		private int current;
+		private LockNode<AnyType> lastVisited = null;
+
+		public SnapshotListIterator(int idx) {
+			LockNode<AnyType> p = beginMarker;
+			p.lock.lock();
+			for (LockNode<AnyType> nxt = nextOf(p); nxt != endMarker; nxt = nextOf(p)) {
+				nxt.lock.lock();
+				p.lock.unlock();
+				p = nxt;
+				nodes.add(p);
+			}
+			p.lock.unlock();
+
+			if (idx < 0 || idx > nodes.size())
+				throw new IndexOutOfBoundsException("index: " + idx + "; size: " + nodes.size());
+			current = idx;
+		}
+
+		public boolean hasNext() {
+			return current < nodes.size();
+		}
+
+		public AnyType next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+
+			lastVisited = nodes.get(current++);
+			return read(lastVisited);
+		}
+
+		public boolean hasPrevious() {
+			return current > 0;
+		}
+
+		public AnyType previous() {
+			if (!hasPrevious())
+				throw new NoSuchElementException();
+
+			lastVisited = nodes.get(--current);
+			return read(lastVisited);
+		}
+
+		public void remove() {
+			if (lastVisited == null)
+				throw new IllegalStateException();
+
+			removeNode(lastVisited);
+			lastVisited = null;
+		}
+
+		private AnyType read(LockNode<AnyType> p) {
+			p.lock.lock();
+			try {
+				return p.data;
+			} finally {
+				p.lock.unlock();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,126 @@
+package doublylinkedlist;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares ConcurrentLinkedList with a LinkedList behind one lock, from 1
+ * thread up to the number of processors (or args[0] threads).
+ *
+ * Every thread works in its own region of the list: it reads, replaces,
+ * inserts and removes at positions in that region, so the threads never need
+ * the same nodes, only the same path down the list.
+ */
+public class ConcurrentListBenchmark {
+
+	private static final int REGION = 256;
+	private static final long MILLIS = 500;
+
+	private interface Ops {
+		Integer get(int idx);
+
+		Integer set(int idx, Integer x);
+
+		void add(int idx, Integer x);
+
+		Integer remove(int idx);
+	}
+
+	private static Ops fineGrained(final ConcurrentLinkedList<Integer> theList) {
+		return new Ops() {
+			public Integer get(int idx) { return theList.get(idx); }
+			public Integer set(int idx, Integer x) { return theList.set(idx, x); }
+			public void add(int idx, Integer x) { theList.add(idx, x); }
+			public Integer remove(int idx) { return theList.remove(idx); }
+		};
+	}
+
+	private static Ops coarseGrained(final LinkedList<Integer> theList) {
+		return new Ops() {
+			public synchronized Integer get(int idx) { return theList.get(idx); }
+			public synchronized Integer set(int idx, Integer x) { return theList.set(idx, x); }
+			public synchronized void add(int idx, Integer x) { theList.add(idx, x); }
+			public synchronized Integer remove(int idx) { return theList.remove(idx); }
+		};
+	}
+
+	/**
+	 * Runs threads threads against ops for MILLIS and returns operations per
+	 * second. Thread t stays within [t * REGION, (t + 1) * REGION); an add is
+	 * always followed by a remove in the same place, so a region only shifts by
+	 * the few items the threads before it have in flight.
+	 */
+	private static long run(final Ops ops, int threads) throws InterruptedException {
+		final AtomicLong count = new AtomicLong();
+		final CountDownLatch start = new CountDownLatch(1);
+		final long[] deadline = new long[1];
+		Thread[] workers = new Thread[threads];
+
+		for (int t = 0; t < threads; t++) {
+			final int base = t * REGION;
+			workers[t] = new Thread(new Runnable() {
+				public void run() {
+					ThreadLocalRandom rnd = ThreadLocalRandom.current();
+					long done = 0;
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					while (System.nanoTime() < deadline[0]) {
+						int idx = base + rnd.nextInt(REGION);
+						switch (rnd.nextInt(4)) {
+						case 0:
+							ops.get(idx);
+							break;
+						case 1:
+							ops.set(idx, idx);
+							break;
+						default:
+							ops.add(idx, idx);
+							ops.remove(idx);
+							done++;
+						}
+						done++;
+					}
+					count.addAndGet(done);
+				}
+			});
+			workers[t].start();
+		}
+
+		deadline[0] = System.nanoTime() + MILLIS * 1000000L;
+		start.countDown();
+		for (Thread w : workers)
+			w.join();
+
+		return count.get() * 1000 / MILLIS;
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+
+		System.out.println("threads    one lock ops/s    lock per node ops/s");
+		for (int threads = 1;; threads = Math.min(threads * 2, maxThreads)) {
+			LinkedList<Integer> coarse = new LinkedList<Integer>();
+			ConcurrentLinkedList<Integer> fine = new ConcurrentLinkedList<Integer>();
+			for (int i = 0; i < threads * REGION; i++) {
+				coarse.add(i);
+				fine.add(i);
+			}
+
+			// Warm up both before measuring.
+			run(coarseGrained(coarse), threads);
+			run(fineGrained(fine), threads);
+
+			long c = run(coarseGrained(coarse), threads);
+			long f = run(fineGrained(fine), threads);
+			System.out.printf("%7d    %15d    %19d%n", threads, c, f);
+
+			if (threads >= maxThreads)
+				break;
+		}
+	}
+
+}
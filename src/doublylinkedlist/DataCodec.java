@@ -0,0 +1,99 @@
+package doublylinkedlist;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * = data codecs =
+ *
+ * - Java serialization writes a class description and an object header for
+ *   every boxed number or String it meets.
+ * - When the type of the items is known, only their bytes need to be written:
+ *   4 for an int, 8 for a long, the UTF-8 bytes and a length for a String.
+ *
+ * - A DataCodec writes one item to a DataOutput and reads it back from a DataInput.
+ * - Unlike an ElementCodec, items may take different numbers of bytes,
+ *   since they are read back in order rather than found by position.
+ * - ObjectOutputStream and ObjectInputStream are a DataOutput and a DataInput,
+ *   so a codec can also be used inside writeObject and readObject.
+ *
+ */
+
+/**
+ *
+ * DataCodec interface; writes items to and reads them from a byte stream.
+ *
+ * @param <AnyType>
+ */
+public interface DataCodec<AnyType> {
+
+	/**
+	 * Writes x to out.
+	 */
+	void write(DataOutput out, AnyType x) throws IOException;
+
+	/**
+	 * Reads the next item from in.
+	 */
+	AnyType read(DataInput in) throws IOException;
+
+	/**
+	 * Codec for non-null Integer items, 4 bytes each.
+	 */
+	DataCodec<Integer> INT = new DataCodec<Integer>() {
+		public void write(DataOutput out, Integer x) throws IOException {
+			out.writeInt(x);
+		}
+
+		public Integer read(DataInput in) throws IOException {
+			return in.readInt();
+		}
+	};
+
+	/**
+	 * Codec for non-null Long items, 8 bytes each.
+	 */
+	DataCodec<Long> LONG = new DataCodec<Long>() {
+		public void write(DataOutput out, Long x) throws IOException {
+			out.writeLong(x);
+		}
+
+		public Long read(DataInput in) throws IOException {
+			return in.readLong();
+		}
+	};
+
+	/**
+	 * Codec for non-null Double items, 8 bytes each.
+	 */
+	DataCodec<Double> DOUBLE = new DataCodec<Double>() {
+		public void write(DataOutput out, Double x) throws IOException {
+			out.writeDouble(x);
+		}
+
+		public Double read(DataInput in) throws IOException {
+			return in.readDouble();
+		}
+	};
+
+	/**
+	 * Codec for non-null String items: the length of the UTF-8 bytes, then the
+	 * bytes. Unlike writeUTF, there is no 64K limit.
+	 */
+	DataCodec<String> STRING = new DataCodec<String>() {
+		public void write(DataOutput out, String x) throws IOException {
+			byte[] bytes = x.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+
+		public String read(DataInput in) throws IOException {
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
+
+}
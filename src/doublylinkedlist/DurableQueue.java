@@ -0,0 +1,706 @@
+package doublylinkedlist;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ConcurrentModificationException;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * = durable queues =
+ *
+ * - A LinkedList used as a work queue lives only in memory,
+ *   so every crash loses the work that was waiting in it.
+ *
+ * - A write-ahead log makes it durable:
+ *   every change is first appended to a file as a record,
+ *   and only then made to the LinkedList in memory.
+ * - On restart the records are replayed in order, which builds the same list again.
+ *
+ *     record:  | length (4 bytes) | CRC-32 of the payload (4 bytes) | payload |
+ *     payload:  ADD item | REMOVE | REMOVE_AT index | CLEAR
+ *
+ * - Appending is cheap; what costs is the fsync (FileChannel.force)
+ *   that waits until the records are on the disk, often milliseconds.
+ * - Group commit: the records are buffered, and one fsync makes a whole batch durable.
+ *   - A fsync is done once syncEvery records are waiting, and by sync() and close().
+ *   - A crash loses at most the last syncEvery - 1 changes, never a part of one.
+ *   - With syncEvery = 1 every change is durable when its method returns.
+ *   - addAll writes all its records before it syncs, so a batch costs one fsync.
+ *
+ * - A crash in the middle of a write leaves a torn record at the end of the log.
+ *   Its length or its CRC does not match, so replay stops there and cuts it off.
+ * - A write that fails without a crash can leave the same torn bytes behind,
+ *   and anything appended after them would be cut off too on the next replay.
+ *   So after the first failure to write the log the queue is failed:
+ *   every later change, sync and compact throws, and the items in memory stay as they were.
+ *
+ * - The log would grow forever, so it is split in segments of about segmentBytes bytes,
+ *   one file each, numbered in order.
+ * - After compactAfter segments the queue is compacted:
+ *   1. the current segment is synced and a new one started,
+ *   2. the items in memory are written to a new snapshot, which is synced,
+ *   3. the snapshot replaces the old one with an atomic rename,
+ *   4. the segments before the new one are deleted.
+ * - A crash at any step leaves either the old snapshot with all its segments,
+ *   or the new snapshot, which says which segment to replay from.
+ * - So a restart reads one snapshot and replays at most compactAfter segments,
+ *   however long the queue has been in use.
+ *
+ */
+
+/**
+ * DurableQueue class implements a queue that keeps its items in memory and
+ * survives restarts by logging every change to a directory.
+ *
+ * DurableQueue is not thread-safe; share it between threads behind one lock.
+ */
+public class DurableQueue<AnyType> extends AbstractCollection<AnyType> implements Queue<AnyType>, Closeable {
+
+	public static final int DEFAULT_SYNC_EVERY = 64;
+	public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+	public static final int DEFAULT_COMPACT_AFTER = 4;
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int SNAPSHOT_MAGIC = 0x44515331; // "DQS1"
+	private static final String SNAPSHOT = "snapshot";
+	private static final String SNAPSHOT_TMP = "snapshot.tmp";
+	private static final String SEGMENT_SUFFIX = ".log";
+
+	private static final byte ADD = 1;
+	private static final byte REMOVE = 2;
+	private static final byte REMOVE_AT = 3;
+	private static final byte CLEAR = 4;
+
+	private final Path dir;
+	private final DataCodec<AnyType> codec;
+	private final int syncEvery;
+	private final long segmentBytes;
+	private final int compactAfter;
+
+	private final LinkedList<AnyType> items = new LinkedList<AnyType>();
+	private int modCount = 0;
+
+	// The first segment not covered by the snapshot, and the one being written.
+	private long firstSegment;
+	private long segment;
+	private FileChannel channel;
+	private DataOutputStream out;
+	private long written;
+	private int unsynced;
+
+	// The first error writing the log; once set, nothing more is written.
+	private IOException failure;
+
+	// Reused to encode the payload of one record.
+	private final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+	private final DataOutputStream payloadOut = new DataOutputStream(payload);
+	private final CRC32 crc = new CRC32();
+
+	/**
+	 * Open the DurableQueue kept in dir, with the default settings.
+	 *
+	 * @see #DurableQueue(Path, DataCodec, int, long, int)
+	 */
+	public DurableQueue(Path dir, DataCodec<AnyType> codec) throws IOException {
+		this(dir, codec, DEFAULT_SYNC_EVERY, DEFAULT_SEGMENT_BYTES, DEFAULT_COMPACT_AFTER);
+	}
+
+	/**
+	 * Open the DurableQueue kept in dir, creating the directory if needed, and
+	 * rebuild its items from the snapshot and the log.
+	 *
+	 * @param dir          the directory that holds the snapshot and the log.
+	 * @param codec        writes and reads the items; it must be the same as
+	 *                     when the log was written.
+	 * @param syncEvery    the number of changes written between two fsyncs.
+	 * @param segmentBytes the size after which a new log segment is started.
+	 * @param compactAfter the number of segments after which a new snapshot is
+	 *                     written and the older segments deleted.
+	 * @throws IllegalArgumentException if a setting is not positive.
+	 * @throws IOException              if the directory can not be read or
+	 *                                  written, or the snapshot or a segment
+	 *                                  before the last one is damaged.
+	 */
+	public DurableQueue(Path dir, DataCodec<AnyType> codec, int syncEvery, long segmentBytes, int compactAfter) throws IOException {
+		if (syncEvery <= 0 || segmentBytes <= 0 || compactAfter <= 0)
+			throw new IllegalArgumentException("syncEvery: " + syncEvery + "; segmentBytes: " + segmentBytes + "; compactAfter: " + compactAfter);
+
+		this.dir = dir;
+		this.codec = codec;
+		this.syncEvery = syncEvery;
+		this.segmentBytes = segmentBytes;
+		this.compactAfter = compactAfter;
+
+		Files.createDirectories(dir);
+		Files.deleteIfExists(dir.resolve(SNAPSHOT_TMP));
+		readSnapshot();
+		long last = replay();
+
+		openSegment(last + 1);
+		if (segment - firstSegment >= compactAfter)
+			compact();
+	}
+
+	/**
+	 * Returns the number of items in this collection.
+	 *
+	 * @return the number of items in this collection.
+	 */
+	public int size() {
+		return items.size();
+	}
+
+	/**
+	 * Tests if some item is in this collection.
+	 *
+	 * @param x any object.
+	 * @return true if this collection contains an item equal to x.
+	 */
+	public boolean contains(Object x) {
+		return items.contains(x);
+	}
+
+	/**
+	 * Change the size of this collection to zero.
+	 *
+	 * @throws UncheckedIOException if the log can not be written.
+	 */
+	public void clear() {
+		beginRecord(CLEAR);
+		endRecord();
+		items.clear();
+		modCount++;
+		commit();
+	}
+
+	/**
+	 * Adds an item to the back of the queue.
+	 *
+	 * @param x any object the codec can write.
+	 * @return true.
+	 * @throws UncheckedIOException if the log can not be written.
+	 */
+	public boolean add(AnyType x) {
+		logAdd(x);
+		items.addLast(x);
+		modCount++;
+		commit();
+		return true;
+	}
+
+	/**
+	 * Adds all items of another Collection to the back of the queue, with one
+	 * fsync for the whole batch (or one per log segment it fills).
+	 *
+	 * @param batch the items to add.
+	 * @return true if the queue changed.
+	 * @throws UncheckedIOException if the log can not be written.
+	 */
+	public boolean addAll(Collection<? extends AnyType> batch) {
+		for (AnyType x : batch) {
+			logAdd(x);
+			items.addLast(x);
+			modCount++;
+			rollIfFull();
+		}
+		commit();
+		return !batch.isEmpty();
+	}
+
+	/**
+	 * Returns the front item in the queue.
+	 *
+	 * @throws NoSuchElementException if the queue is empty.
+	 */
+	public AnyType element() {
+		return items.getFirst();
+	}
+
+	/**
+	 * Returns the front item in the queue, or null if the queue is empty.
+	 */
+	public AnyType peek() {
+		return items.isEmpty() ? null : items.getFirst();
+	}
+
+	/**
+	 * Removes the front item in the queue.
+	 *
+	 * @return the front item.
+	 * @throws NoSuchElementException if the queue is empty.
+	 * @throws UncheckedIOException   if the log can not be written.
+	 */
+	public AnyType remove() {
+		if (items.isEmpty())
+			throw new NoSuchElementException();
+
+		beginRecord(REMOVE);
+		endRecord();
+		AnyType x = items.removeFirst();
+		modCount++;
+		commit();
+		return x;
+	}
+
+	/**
+	 * Removes the front item in the queue, if there is one.
+	 *
+	 * @return the front item, or null if the queue is empty.
+	 * @throws UncheckedIOException if the log can not be written.
+	 */
+	public AnyType poll() {
+		return items.isEmpty() ? null : remove();
+	}
+
+	/**
+	 * Obtains a primitive array view of the collection.
+	 *
+	 * @return the primitive array view.
+	 */
+	public Object[] toArray() {
+		return items.toArray();
+	}
+
+	/**
+	 * Obtains a primitive array view of the collection.
+	 *
+	 * @param arr the array to fill, if it is large enough.
+	 * @return the primitive array view.
+	 */
+	public <OtherType> OtherType[] toArray(OtherType[] arr) {
+		return items.toArray(arr);
+	}
+
+	/**
+	 * Obtains an Iterator object used to traverse the collection from the
+	 * front. Its remove is logged like any other change.
+	 *
+	 * @return an iterator positioned prior to the first element.
+	 */
+	public Iterator<AnyType> iterator() {
+		final Iterator<AnyType> itr = items.iterator();
+
+		return new Iterator<AnyType>() {
+			// The index of the item the next call of next() returns.
+			private int current = 0;
+			private boolean okToRemove = false;
+			private int expectedModCount = modCount;
+
+			public boolean hasNext() {
+				return itr.hasNext();
+			}
+
+			public AnyType next() {
+				if (modCount != expectedModCount)
+					throw new ConcurrentModificationException();
+				AnyType x = itr.next();
+				current++;
+				okToRemove = true;
+				return x;
+			}
+
+			public void remove() {
+				if (modCount != expectedModCount)
+					throw new ConcurrentModificationException();
+				if (!okToRemove)
+					throw new IllegalStateException();
+
+				// Every check is done above, so the removal can not fail once it is logged.
+				// A record removing an item by index replays the same change.
+				beginRecord(REMOVE_AT);
+				try {
+					payloadOut.writeInt(current - 1);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				endRecord();
+				itr.remove();
+				modCount++;
+				expectedModCount++;
+				current--;
+				okToRemove = false;
+				commit();
+			}
+		};
+	}
+
+	/**
+	 * Writes the waiting records to the log and waits until they are on the
+	 * disk.
+	 *
+	 * @throws UncheckedIOException if the log can not be written.
+	 */
+	public void sync() {
+		checkNotFailed();
+		try {
+			out.flush();
+			channel.force(false);
+			unsynced = 0;
+		} catch (IOException e) {
+			throw fail(e);
+		}
+	}
+
+	/**
+	 * Writes a snapshot of the items and deletes the log segments it replaces.
+	 * This is done automatically every compactAfter segments.
+	 *
+	 * @throws UncheckedIOException if the snapshot can not be written.
+	 */
+	public void compact() {
+		checkNotFailed();
+		try {
+			openSegment(segment + 1);
+			writeSnapshot(segment);
+
+			for (long s = firstSegment; s < segment; s++)
+				Files.deleteIfExists(segmentPath(s));
+			firstSegment = segment;
+		} catch (IOException e) {
+			throw fail(e);
+		}
+	}
+
+	/**
+	 * Syncs the log and closes it. The queue must not be used afterwards.
+	 *
+	 * @throws IOException if the log can not be written or closed.
+	 */
+	public void close() throws IOException {
+		if (failure != null) {
+			channel.close();
+			throw new IOException("the log of " + dir + " failed earlier", failure);
+		}
+		try {
+			sync();
+		} catch (UncheckedIOException e) {
+			channel.close();
+			throw e.getCause();
+		}
+		channel.close();
+	}
+
+	/**
+	 * A DurableQueue can not be serialized, since it owns the files of its log.
+	 * Copy the items into a LinkedList to serialize them.
+	 *
+	 * @throws NotSerializableException always.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		throw new NotSerializableException(getClass().getName() + " owns the files of its log and can not be serialized");
+	}
+
+	/**
+	 * Appends the ADD record of x to the log.
+	 */
+	private void logAdd(AnyType x) {
+		beginRecord(ADD);
+		try {
+			codec.write(payloadOut, x);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		endRecord();
+	}
+
+	/**
+	 * Starts the payload of a record of the given type.
+	 */
+	private void beginRecord(byte type) {
+		checkNotFailed();
+		payload.reset();
+		try {
+			payloadOut.writeByte(type);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Appends the framed payload to the current segment. The change itself is
+	 * made to the items afterwards, followed by commit().
+	 */
+	private void endRecord() {
+		byte[] bytes = payload.toByteArray();
+		crc.reset();
+		crc.update(bytes, 0, bytes.length);
+
+		try {
+			out.writeInt(bytes.length);
+			out.writeInt((int) crc.getValue());
+			out.write(bytes);
+		} catch (IOException e) {
+			throw fail(e);
+		}
+		written += 8 + bytes.length;
+		unsynced++;
+	}
+
+	/**
+	 * Records the first error writing the log, after which the log may end in
+	 * a torn record and must not be written again.
+	 *
+	 * @return e, wrapped, for the caller to throw.
+	 */
+	private UncheckedIOException fail(IOException e) {
+		if (failure == null)
+			failure = e;
+		return new UncheckedIOException(e);
+	}
+
+	/**
+	 * Refuses to go on once the log has failed.
+	 *
+	 * @throws UncheckedIOException if an earlier write of the log failed.
+	 */
+	private void checkNotFailed() {
+		if (failure != null)
+			throw new UncheckedIOException(new IOException("the log of " + dir + " failed earlier", failure));
+	}
+
+	/**
+	 * Ends a change whose records are written and which is made to the items:
+	 * starts a new segment if the current one is full, and syncs once syncEvery
+	 * records are waiting.
+	 */
+	private void commit() {
+		rollIfFull();
+		if (unsynced >= syncEvery)
+			sync();
+	}
+
+	/**
+	 * Starts a new segment, or compacts when it is time, once the current
+	 * segment is full. Only call it when the items match the log, since a
+	 * compaction writes them to the snapshot.
+	 */
+	private void rollIfFull() {
+		if (written < segmentBytes)
+			return;
+
+		if (segment + 1 - firstSegment >= compactAfter)
+			compact();
+		else {
+			try {
+				openSegment(segment + 1);
+			} catch (IOException e) {
+				throw fail(e);
+			}
+		}
+	}
+
+	/**
+	 * Syncs and closes the current segment, if any, and starts segment number
+	 * next.
+	 */
+	private void openSegment(long next) throws IOException {
+		if (channel != null) {
+			out.flush();
+			channel.force(false);
+			channel.close();
+		}
+
+		channel = FileChannel.open(segmentPath(next), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+		segment = next;
+		written = 0;
+		unsynced = 0;
+		syncDirectory();
+	}
+
+	private Path segmentPath(long s) {
+		return dir.resolve(String.format("%016d", s) + SEGMENT_SUFFIX);
+	}
+
+	/**
+	 * Writes the items to a new snapshot, to be followed by segment from on,
+	 * and puts it in place of the old one.
+	 */
+	private void writeSnapshot(long from) throws IOException {
+		Path tmp = dir.resolve(SNAPSHOT_TMP);
+		try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(ch)), new CRC32());
+			DataOutputStream snap = new DataOutputStream(checked);
+			snap.writeInt(SNAPSHOT_MAGIC);
+			snap.writeLong(from);
+			snap.writeInt(items.size());
+			for (AnyType x : items)
+				codec.write(snap, x);
+			snap.flush();
+			snap.writeInt((int) checked.getChecksum().getValue());
+			snap.flush();
+			ch.force(false);
+		}
+
+		Files.move(tmp, dir.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		syncDirectory();
+	}
+
+	/**
+	 * Loads the items of the snapshot, if there is one, and sets firstSegment.
+	 */
+	private void readSnapshot() throws IOException {
+		Path file = dir.resolve(SNAPSHOT);
+		firstSegment = 0;
+		if (!Files.exists(file))
+			return;
+
+		try (CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(Files.newInputStream(file)), new CRC32())) {
+			DataInputStream in = new DataInputStream(checked);
+			if (in.readInt() != SNAPSHOT_MAGIC)
+				throw new IOException(file + " is not a DurableQueue snapshot");
+
+			long from = in.readLong();
+			for (int n = in.readInt(); n > 0; n--)
+				items.addLast(codec.read(in));
+
+			int expected = (int) checked.getChecksum().getValue();
+			if (in.readInt() != expected)
+				throw new IOException(file + " is damaged");
+			firstSegment = from;
+		} catch (EOFException e) {
+			throw new IOException(file + " is damaged", e);
+		}
+	}
+
+	/**
+	 * Replays the segments from firstSegment on, in order, deletes the older
+	 * ones, and cuts a torn record off the end of the last one.
+	 *
+	 * @return the number of the last segment, or firstSegment - 1 if there is
+	 *         none.
+	 */
+	private long replay() throws IOException {
+		TreeMap<Long, Path> found = new TreeMap<Long, Path>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+			for (Path p : files) {
+				String name = p.getFileName().toString();
+				try {
+					found.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), p);
+				} catch (NumberFormatException e) {
+					// Not a segment.
+				}
+			}
+		}
+
+		long last = firstSegment - 1;
+		for (Map.Entry<Long, Path> e : found.entrySet()) {
+			if (e.getKey() < firstSegment) {
+				// Left behind by a crash during compact.
+				Files.delete(e.getValue());
+				continue;
+			}
+			if (e.getKey() != last + 1)
+				throw new IOException("log segment " + (last + 1) + " is missing in " + dir);
+
+			boolean isLast = e.getKey().equals(found.lastKey());
+			replaySegment(e.getValue(), isLast);
+			last = e.getKey();
+		}
+		return last;
+	}
+
+	/**
+	 * Applies the records of one segment to the items.
+	 *
+	 * 1. Read the length and the CRC.
+	 * 2. Stop at the first record that is cut short or whose CRC does not match.
+	 * 3. That can only be the result of a crash while the last segment was
+	 *    written, so cut it and what follows off the file; anywhere else it
+	 *    is damage.
+	 */
+	private void replaySegment(Path file, boolean isLast) throws IOException {
+		long size = Files.size(file);
+		long pos = 0;
+		CRC32 check = new CRC32();
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			while (pos < size) {
+				if (size - pos < 8)
+					break;
+				int length = in.readInt();
+				int expected = in.readInt();
+				if (length <= 0 || length > size - pos - 8)
+					break;
+
+				byte[] bytes = new byte[length];
+				in.readFully(bytes);
+				check.reset();
+				check.update(bytes, 0, length);
+				if ((int) check.getValue() != expected)
+					break;
+
+				apply(new DataInputStream(new ByteArrayInputStream(bytes)));
+				pos += 8 + length;
+			}
+		}
+
+		if (pos < size) {
+			if (!isLast)
+				throw new IOException(file + " is damaged at byte " + pos);
+			try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				ch.truncate(pos);
+				ch.force(false);
+			}
+		}
+	}
+
+	/**
+	 * Applies one record to the items.
+	 */
+	private void apply(DataInputStream in) throws IOException {
+		byte type = in.readByte();
+		switch (type) {
+		case ADD:
+			items.addLast(codec.read(in));
+			break;
+		case REMOVE:
+			items.removeFirst();
+			break;
+		case REMOVE_AT:
+			items.remove(in.readInt());
+			break;
+		case CLEAR:
+			items.clear();
+			break;
+		default:
+			throw new IOException("unknown log record type: " + type);
+		}
+	}
+
+	/**
+	 * Makes the creation, renaming and deletion of files in dir durable, where
+	 * the platform allows a directory to be synced.
+	 */
+	private void syncDirectory() {
+		try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+			ch.force(true);
+		} catch (IOException e) {
+			// Some platforms can not open or sync a directory.
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+package doublylinkedlist;
+
+import java.nio.ByteBuffer;
+
+/**
+ * = element codecs =
+ *
+ * - A list that keeps its items outside the Java heap cannot store references;
+ *   it has to store the bytes of each item.
+ * - An ElementCodec says how many bytes an item takes
+ *   and how to write it into, and read it back from, a ByteBuffer.
+ *
+ * - Every item takes the same number of bytes,
+ *   so a record can be found by simple arithmetic on its position.
+ * - read returns a new object each time;
+ *   the list never hands out the object that was added.
+ *
+ * - A list is serialized together with its codec,
+ *   so only a list whose codec is serializable can be serialized.
+ *
+ */
+
+/**
+ *
+ * ElementCodec interface; converts items to and from fixed-size records.
+ *
+ * @param <AnyType>
+ */
+public interface ElementCodec<AnyType> {
+
+	/**
+	 * Returns the number of bytes every encoded item takes.
+	 */
+	int size();
+
+	/**
+	 * Writes x into buf, starting at offset.
+	 */
+	void write(ByteBuffer buf, int offset, AnyType x);
+
+	/**
+	 * Reads the item stored in buf, starting at offset.
+	 */
+	AnyType read(ByteBuffer buf, int offset);
+
+	/**
+	 * Codec for non-null Integer items, 4 bytes each.
+	 */
+	ElementCodec<Integer> INT = new IntCodec();
+
+	/**
+	 * Codec for non-null Long items, 8 bytes each.
+	 */
+	ElementCodec<Long> LONG = new LongCodec();
+
+	/**
+	 * The class of INT. It is serializable, so a list using INT can be
+	 * serialized, and reading it back gives INT itself.
+	 */
+	final class IntCodec implements ElementCodec<Integer>, java.io.Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private IntCodec() {
+		}
+
+		public int size() {
+			return Integer.BYTES;
+		}
+
+		public void write(ByteBuffer buf, int offset, Integer x) {
+			buf.putInt(offset, x);
+		}
+
+		public Integer read(ByteBuffer buf, int offset) {
+			return buf.getInt(offset);
+		}
+
+		private Object readResolve() {
+			return INT;
+		}
+	}
+
+	/**
+	 * The class of LONG. It is serializable, so a list using LONG can be
+	 * serialized, and reading it back gives LONG itself.
+	 */
+	final class LongCodec implements ElementCodec<Long>, java.io.Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private LongCodec() {
+		}
+
+		public int size() {
+			return Long.BYTES;
+		}
+
+		public void write(ByteBuffer buf, int offset, Long x) {
+			buf.putLong(offset, x);
+		}
+
+		public Long read(ByteBuffer buf, int offset) {
+			return buf.getLong(offset);
+		}
+
+		private Object readResolve() {
+			return LONG;
+		}
+	}
+
+}
@@ -0,0 +1,535 @@
+package doublylinkedlist;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * = indexable skip lists =
+ *
+ * - In LinkedList, get(idx), add(idx, x) and remove(idx) must first step to position idx,
+ *   which is O(N) no matter how cheap the splice itself is.
+ *
+ * - A skip list adds express lanes on top of the bottom level linked list.
+ * - Every node gets a random level; a node of level k is linked into levels 0 .. k-1.
+ * - Level 0 holds every item, level 1 about a quarter of them, level 2 about a sixteenth, and so on.
+ *
+ * - To make the list indexable, each forward link also records its span:
+ *   the number of bottom level steps it skips.
+ *
+ *     level 2:  head ---------------(4)---------------> e -----(2)-----> endMarker
+ *     level 1:  head -----(2)-----> b -------(2)------> e -----(2)-----> endMarker
+ *     level 0:  head -(1)-> a -(1)-> b -(1)-> c -(1)-> d -(1)-> e -(1)-> f -(1)-> endMarker
+ *
+ * findPredecessors()
+ * - To reach position idx we start at the top level of the head, and on each level
+ *   follow links as long as the sum of the spans does not pass idx, then drop one level.
+ * - This visits O(log N) nodes on average.
+ * - The last node seen on each level is remembered, together with its position,
+ *   because those are exactly the links that add and remove must patch.
+ *
+ * add()
+ * - The new node is spliced into its lower levels, and its spans are cut out of the
+ *   spans of its predecessors.
+ * - The predecessors on the higher levels simply skip one more item.
+ *
+ * remove()
+ * - The reverse: spans of the removed node are merged back into its predecessors,
+ *   and on the higher levels they skip one item less.
+ *
+ * - The bottom level also keeps a prev link, so the iterator moves in both directions
+ *   in O(1), and getFirst and getLast do not search at all.
+ *
+ */
+
+/**
+ * IndexableSkipList class implements a List with O(log N) expected positional
+ * access, insertion and removal.
+ */
+public class IndexableSkipList<AnyType> extends AbstractCollection<AnyType> implements List<AnyType>, Queue<AnyType> {
+
+	private static final int MAX_LEVEL = 32;
+
+	private int theSize;
+	private int level;
+	private SkipNode<AnyType> beginMarker;
+	private SkipNode<AnyType> endMarker;
+	private int modCount = 0;
+	private final Random random = new Random();
+
+	// Filled by findPredecessors: the last node visited on each level, and its position.
+	private final SkipNode<AnyType>[] update = newArray(MAX_LEVEL);
+	private final int[] rank = new int[MAX_LEVEL];
+
+	/**
+	 * Construct an empty IndexableSkipList.
+	 */
+	public IndexableSkipList() {
+		clear();
+	}
+
+	/**
+	 * Construct an IndexableSkipList with same items as another Collection.
+	 */
+	public IndexableSkipList(Collection<? extends AnyType> other) {
+		clear();
+		for (AnyType val : other)
+			add(val);
+	}
+
+	/**
+	 * Change the size of this collection to zero.
+	 */
+	public void clear() {
+		beginMarker = new SkipNode<AnyType>(null, MAX_LEVEL);
+		endMarker = new SkipNode<AnyType>(null, MAX_LEVEL);
+		beginMarker.next[0] = endMarker;
+		beginMarker.span[0] = 1;
+		endMarker.prev = beginMarker;
+		level = 1;
+
+		theSize = 0;
+		modCount++;
+	}
+
+	/**
+	 * Returns the number of items in this collection.
+	 *
+	 * @return the number of items in this collection.
+	 */
+	public int size() {
+		return theSize;
+	}
+
+	/**
+	 * Tests if some item is in this collection.
+	 *
+	 * @param x any object.
+	 * @return true if this collection contains an item equal to x.
+	 */
+	public boolean contains(Object x) {
+		return indexOf(x) >= 0;
+	}
+
+	/**
+	 * Returns the index of the first item matching x, or -1 if not found.
+	 * This is a sequential scan of the bottom level.
+	 */
+	private int indexOf(Object x) {
+		int idx = 0;
+		for (SkipNode<AnyType> p = beginMarker.next[0]; p != endMarker; p = p.next[0], idx++)
+			if (x == null) {
+				if (p.data == null)
+					return idx;
+			} else if (x.equals(p.data))
+				return idx;
+
+		return -1;
+	}
+
+	/**
+	 * Adds an item to this collection, at the end.
+	 *
+	 * @param x any object.
+	 * @return true.
+	 */
+	public boolean add(AnyType x) {
+		addLast(x);
+		return true;
+	}
+
+	/**
+	 * Adds an item to this collection, at specified position. Items at or after
+	 * that position are slid one position higher.
+	 *
+	 * @param x   any object.
+	 * @param idx position to add at.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(),
+	 *                                   inclusive.
+	 */
+	public void add(int idx, AnyType x) {
+		checkIndex(idx, 0, size());
+		findPredecessors(idx);
+
+		int newLevel = randomLevel();
+		if (newLevel > level) {
+			for (int i = level; i < newLevel; i++) {
+				update[i] = beginMarker;
+				rank[i] = 0;
+				beginMarker.next[i] = endMarker;
+				beginMarker.span[i] = theSize + 1;
+			}
+			level = newLevel;
+		}
+
+		SkipNode<AnyType> newNode = new SkipNode<AnyType>(x, newLevel);
+		for (int i = 0; i < newLevel; i++) {
+			SkipNode<AnyType> p = update[i];
+			newNode.next[i] = p.next[i];
+			newNode.span[i] = p.span[i] - (idx - rank[i]);
+			p.next[i] = newNode;
+			p.span[i] = idx - rank[i] + 1;
+		}
+		for (int i = newLevel; i < level; i++)
+			update[i].span[i]++;
+
+		newNode.prev = update[0];
+		newNode.next[0].prev = newNode;
+
+		theSize++;
+		modCount++;
+	}
+
+	/**
+	 * Adds all items of another collection, in order, at position idx. The
+	 * items are copied out first, so items may be this list.
+	 *
+	 * @param idx   position to add at.
+	 * @param items the items to add.
+	 * @return true if this list changed.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(),
+	 *                                   inclusive.
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean addAll(int idx, Collection<? extends AnyType> items) {
+		if (idx < 0 || idx > size())
+			throw new IndexOutOfBoundsException("addAll index: " + idx + "; size: " + size());
+
+		Object[] arr = items.toArray(new Object[items.size()]);
+		for (int i = 0; i < arr.length; i++)
+			add(idx + i, (AnyType) arr[i]);
+		return arr.length != 0;
+	}
+
+	/**
+	 * Adds an item to this collection, at front. Other items are slid one position
+	 * higher.
+	 *
+	 * @param x any object.
+	 */
+	public void addFirst(AnyType x) {
+		add(0, x);
+	}
+
+	/**
+	 * Adds an item to this collection, at end.
+	 *
+	 * @param x any object.
+	 */
+	public void addLast(AnyType x) {
+		add(size(), x);
+	}
+
+	/**
+	 * Returns the front item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType element() {
+		return getFirst();
+	}
+
+	/**
+	 * Returns the first item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType getFirst() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return beginMarker.next[0].data;
+	}
+
+	/**
+	 * Returns the last item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType getLast() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return endMarker.prev.data;
+	}
+
+	/**
+	 * Returns the item at position idx.
+	 *
+	 * @param idx the index to search in.
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 */
+	public AnyType get(int idx) {
+		return getNode(idx).data;
+	}
+
+	/**
+	 * Changes the item at position idx.
+	 *
+	 * @param idx    the index to change.
+	 * @param newVal the new value.
+	 * @return the old value.
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 */
+	public AnyType set(int idx, AnyType newVal) {
+		SkipNode<AnyType> p = getNode(idx);
+		AnyType oldVal = p.data;
+
+		p.data = newVal;
+		return oldVal;
+	}
+
+	/**
+	 * Removes the front item in the queue.
+	 *
+	 * @return the front item.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType remove() {
+		return removeFirst();
+	}
+
+	/**
+	 * Removes the first item in the list.
+	 *
+	 * @return the item was removed from the collection.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType removeFirst() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return remove(0);
+	}
+
+	/**
+	 * Removes the last item in the list.
+	 *
+	 * @return the item was removed from the collection.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType removeLast() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return remove(size() - 1);
+	}
+
+	/**
+	 * Removes an item from this collection.
+	 *
+	 * @param x any object.
+	 * @return true if this item was removed from the collection.
+	 */
+	public boolean remove(Object x) {
+		int idx = indexOf(x);
+
+		if (idx < 0)
+			return false;
+		else {
+			remove(idx);
+			return true;
+		}
+	}
+
+	/**
+	 * Removes an item from this collection.
+	 *
+	 * @param idx the index of the object.
+	 * @return the item was removed from the collection.
+	 */
+	public AnyType remove(int idx) {
+		checkIndex(idx, 0, size() - 1);
+		findPredecessors(idx);
+
+		SkipNode<AnyType> p = update[0].next[0];
+		for (int i = 0; i < level; i++) {
+			if (update[i].next[i] == p) {
+				update[i].span[i] += p.span[i] - 1;
+				update[i].next[i] = p.next[i];
+			} else
+				update[i].span[i]--;
+		}
+		p.next[0].prev = p.prev;
+
+		while (level > 1 && beginMarker.next[level - 1] == endMarker)
+			level--;
+
+		theSize--;
+		modCount++;
+
+		return p.data;
+	}
+
+	/**
+	 * Gets the node at position idx, which must range from 0 to size( )-1.
+	 *
+	 * @param idx index to search at.
+	 * @return internal node corrsponding to idx.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size()-1,
+	 *                                   inclusive.
+	 */
+	private SkipNode<AnyType> getNode(int idx) {
+		checkIndex(idx, 0, size() - 1);
+
+		SkipNode<AnyType> p = beginMarker;
+		int pos = 0;
+		for (int i = level - 1; i >= 0; i--)
+			while (pos + p.span[i] <= idx + 1) {
+				pos += p.span[i];
+				p = p.next[i];
+			}
+
+		return p;
+	}
+
+	/**
+	 * Fills update and rank with, on every level, the last node whose position
+	 * does not pass idx. The beginMarker is at position 0 and the item with
+	 * index idx is at position idx + 1, so update[0] is the node before idx.
+	 */
+	private void findPredecessors(int idx) {
+		SkipNode<AnyType> p = beginMarker;
+		int pos = 0;
+		for (int i = level - 1; i >= 0; i--) {
+			while (pos + p.span[i] <= idx) {
+				pos += p.span[i];
+				p = p.next[i];
+			}
+			update[i] = p;
+			rank[i] = pos;
+		}
+	}
+
+	/**
+	 * Throws IndexOutOfBoundsException if idx is not between lower and upper,
+	 * inclusive.
+	 */
+	private void checkIndex(int idx, int lower, int upper) {
+		if (idx < lower || idx > upper)
+			throw new IndexOutOfBoundsException("getNode index: " + idx + "; size: " + size());
+	}
+
+	/**
+	 * Returns a random level between 1 and MAX_LEVEL; each extra level has
+	 * probability 1/4.
+	 */
+	private int randomLevel() {
+		int lvl = 1;
+		while (lvl < MAX_LEVEL && random.nextInt(4) == 0)
+			lvl++;
+		return lvl;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <AnyType> SkipNode<AnyType>[] newArray(int length) {
+		return (SkipNode<AnyType>[]) new SkipNode[length];
+	}
+
+	/**
+	 * Obtains an Iterator object used to traverse the collection.
+	 *
+	 * @return an iterator positioned prior to the first element.
+	 */
+	public Iterator<AnyType> iterator() {
+		return new SkipListIterator(0);
+	}
+
+	/**
+	 * Obtains a ListIterator object used to traverse the collection
+	 * bidirectionally.
+	 *
+	 * @return an iterator positioned prior to the requested element.
+	 * @param idx the index to start the iterator. Use size() to do complete reverse
+	 *            traversal. Use 0 to do complete forward traversal.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(), inclusive.
+	 */
+	public ListIterator<AnyType> listIteraor(int idx) {
+		return new SkipListIterator(idx);
+	}
+
+	/**
+	 * A skip list node: the item, a forward link and a span per level, and a
+	 * prev link on the bottom level.
+	 */
+	private static class SkipNode<AnyType> {
+		AnyType data;
+		SkipNode<AnyType> prev;
+		SkipNode<AnyType>[] next;
+		int[] span;
+
+		SkipNode(AnyType d, int lvl) {
+			data = d;
+			next = newArray(lvl);
+			span = new int[lvl];
+		}
+	}
+
+	/**
+	 * This is the implementation of the SkipListIterator. It walks the bottom
+	 * level and keeps the index of current, so that remove can be done by
+	 * position.
+	 */
+	private class SkipListIterator implements ListIterator<AnyType> {
+		private SkipNode<AnyType> current;
+		private int index;
+		private boolean canRemove = false;
+		private boolean lastMoveWasPrev = false;
+		private int expectedModCount = modCount;
+
+		public SkipListIterator(int idx) {
+			checkIndex(idx, 0, size());
+			current = idx == size() ? endMarker : getNode(idx);
+			index = idx;
+		}
+
+		public boolean hasNext() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			return current != endMarker;
+		}
+
+		public AnyType next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+
+			AnyType nextItem = current.data;
+			current = current.next[0];
+			index++;
+			canRemove = true;
+			lastMoveWasPrev = false;
+			return nextItem;
+		}
+
+		public void remove() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			if (!canRemove)
+				throw new IllegalStateException();
+
+			if (lastMoveWasPrev) {
+				current = current.next[0];
+				IndexableSkipList.this.remove(index);
+			} else
+				IndexableSkipList.this.remove(--index);
+			canRemove = false;
+			expectedModCount++;
+		}
+
+		public boolean hasPrevious() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			return current != beginMarker.next[0];
+		}
+
+		public AnyType previous() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			if (!hasPrevious())
+				throw new NoSuchElementException();
+
+			current = current.prev;
+			index--;
+			canRemove = true;
+			lastMoveWasPrev = true;
+			return current.data;
+		}
+	}
+
+}
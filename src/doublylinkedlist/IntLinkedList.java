@@ -0,0 +1,490 @@
+package doublylinkedlist;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * = primitive specialized linked lists =
+ *
+ * - A LinkedList<Integer> stores a reference to a boxed Integer in every Node,
+ *   so every item costs 2 objects, and reading it costs 2 pointer chases.
+ * - Generics in Java work only with reference types, so the only way to avoid the boxing
+ *   is to write the list again for the primitive type.
+ *
+ * - IntLinkedList is LinkedList with the data field of the node declared as int.
+ * - The algorithms are exactly the same: beginMarker and endMarker, getNode walking from
+ *   the closest end (or the finger), and a fail-fast iterator.
+ * - Since remove(int idx) already removes by position, removing by value is called removeValue.
+ *
+ * - The iterator returns int values through nextInt and previousInt,
+ *   so a loop over the list allocates nothing.
+ *
+ */
+
+/**
+ * IntLinkedList class implements a doubly-linked list of int values.
+ */
+public class IntLinkedList implements java.io.Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	// Nothing is serialized by default; writeObject writes the size and the
+	// values, and readObject rebuilds the nodes.
+	private transient int theSize;
+	private transient IntNode beginMarker;
+	private transient IntNode endMarker;
+	private transient int modCount = 0;
+
+	// The finger remembers the last node reached by getNode and its index.
+	// It is only trusted while fingerModCount matches modCount.
+	private transient IntNode finger;
+	private transient int fingerIdx;
+	private transient int fingerModCount = -1;
+
+	/**
+	 * Construct an empty IntLinkedList.
+	 */
+	public IntLinkedList() {
+		clear();
+	}
+
+	/**
+	 * Change the size of this collection to zero.
+	 */
+	public void clear() {
+		beginMarker = new IntNode(0, null, null);
+		endMarker = new IntNode(0, beginMarker, null);
+		beginMarker.next = endMarker;
+
+		theSize = 0;
+		modCount++;
+	}
+
+	/**
+	 * Returns the number of items in this collection.
+	 *
+	 * @return the number of items in this collection.
+	 */
+	public int size() {
+		return theSize;
+	}
+
+	/**
+	 * Test if this collection is empty.
+	 *
+	 * @return true if the size of this collection is zero.
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Tests if some item is in this collection.
+	 *
+	 * @param x any int.
+	 * @return true if this collection contains x.
+	 */
+	public boolean contains(int x) {
+		return findPos(x) != null;
+	}
+
+	/**
+	 * Returns the node of the first item equal to x in this collection, or null
+	 * if not found.
+	 */
+	private IntNode findPos(int x) {
+		for (IntNode p = beginMarker.next; p != endMarker; p = p.next)
+			if (p.data == x)
+				return p;
+
+		return null;
+	}
+
+	/**
+	 * Adds an item to this collection, at the end.
+	 *
+	 * @param x any int.
+	 * @return true.
+	 */
+	public boolean add(int x) {
+		addLast(x);
+		return true;
+	}
+
+	/**
+	 * Adds an item to this collection, at specified position. Items at or after
+	 * that position are slid one position higher.
+	 *
+	 * @param idx position to add at.
+	 * @param x   any int.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(),
+	 *                                   inclusive.
+	 */
+	public void add(int idx, int x) {
+		IntNode p = getNode(idx, 0, size());
+		IntNode newNode = new IntNode(x, p.prev, p);
+		newNode.prev.next = newNode;
+		p.prev = newNode;
+		theSize++;
+		modCount++;
+		setFinger(newNode, idx);
+	}
+
+	/**
+	 * Adds an item to this collection, at front. Other items are slid one position
+	 * higher.
+	 *
+	 * @param x any int.
+	 */
+	public void addFirst(int x) {
+		add(0, x);
+	}
+
+	/**
+	 * Adds an item to this collection, at end.
+	 *
+	 * @param x any int.
+	 */
+	public void addLast(int x) {
+		add(size(), x);
+	}
+
+	/**
+	 * Writes the size and then the values, instead of the graph of nodes,
+	 * which are not serializable.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(theSize);
+		for (IntNode p = beginMarker.next; p != endMarker; p = p.next)
+			out.writeInt(p.data);
+	}
+
+	/**
+	 * Reads what writeObject wrote, adding each value at the end.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		int size = in.readInt();
+		if (size < 0)
+			throw new StreamCorruptedException("negative size: " + size);
+
+		fingerModCount = -1;
+		clear();
+		for (int i = 0; i < size; i++)
+			addLast(in.readInt());
+	}
+
+	/**
+	 * Returns the front item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public int element() {
+		return getFirst();
+	}
+
+	/**
+	 * Returns the first item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public int getFirst() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return beginMarker.next.data;
+	}
+
+	/**
+	 * Returns the last item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public int getLast() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return endMarker.prev.data;
+	}
+
+	/**
+	 * Returns the item at position idx.
+	 *
+	 * @param idx the index to search in.
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 */
+	public int get(int idx) {
+		return getNode(idx).data;
+	}
+
+	/**
+	 * Changes the item at position idx.
+	 *
+	 * @param idx    the index to change.
+	 * @param newVal the new value.
+	 * @return the old value.
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 */
+	public int set(int idx, int newVal) {
+		IntNode p = getNode(idx);
+		int oldVal = p.data;
+
+		p.data = newVal;
+		return oldVal;
+	}
+
+	/**
+	 * Removes the front item in the queue.
+	 *
+	 * @return the front item.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public int remove() {
+		return removeFirst();
+	}
+
+	/**
+	 * Removes the first item in the list.
+	 *
+	 * @return the item was removed from the collection.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public int removeFirst() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return remove(beginMarker.next);
+	}
+
+	/**
+	 * Removes the last item in the list.
+	 *
+	 * @return the item was removed from the collection.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public int removeLast() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return remove(endMarker.prev);
+	}
+
+	/**
+	 * Removes the first occurrence of x from this collection.
+	 *
+	 * @param x any int.
+	 * @return true if this item was removed from the collection.
+	 */
+	public boolean removeValue(int x) {
+		IntNode pos = findPos(x);
+
+		if (pos == null)
+			return false;
+		else {
+			remove(pos);
+			return true;
+		}
+	}
+
+	/**
+	 * Removes an item from this collection.
+	 *
+	 * @param idx the index of the object.
+	 * @return the item was removed from the collection.
+	 */
+	public int remove(int idx) {
+		IntNode p = getNode(idx);
+		IntNode successor = p.next;
+		int removed = remove(p);
+
+		setFinger(successor, idx);
+		return removed;
+	}
+
+	/**
+	 * Obtains a primitive array holding the items of this collection, in order.
+	 *
+	 * @return the array.
+	 */
+	public int[] toArray() {
+		int[] copy = new int[size()];
+
+		int i = 0;
+		for (IntNode p = beginMarker.next; p != endMarker; p = p.next)
+			copy[i++] = p.data;
+		return copy;
+	}
+
+	/**
+	 * Gets the Node at position idx, which must range from 0 to size( )-1.
+	 */
+	private IntNode getNode(int idx) {
+		return getNode(idx, 0, size() - 1);
+	}
+
+	/**
+	 * Gets the Node at position idx, which must range from lower to upper,
+	 * starting from the first node, the endMarker or the finger, whichever is
+	 * nearest.
+	 *
+	 * @param idx   index to search at.
+	 * @param lower lowest valid index.
+	 * @param upper highest valid index.
+	 * @return internal node corrsponding to idx.
+	 * @throws IndexOutOfBoundsException if idx is not between lower and upper,
+	 *                                   inclusive.
+	 */
+	private IntNode getNode(int idx, int lower, int upper) {
+		IntNode p;
+		int pos;
+
+		if (idx < lower || idx > upper)
+			throw new IndexOutOfBoundsException("getNode index: " + idx + "; size: " + size());
+
+		if (idx < size() / 2) {
+			p = beginMarker.next;
+			pos = 0;
+		} else {
+			p = endMarker;
+			pos = size();
+		}
+
+		if (fingerModCount == modCount && Math.abs(idx - fingerIdx) < Math.abs(idx - pos)) {
+			p = finger;
+			pos = fingerIdx;
+		}
+
+		for (; pos < idx; pos++)
+			p = p.next;
+		for (; pos > idx; pos--)
+			p = p.prev;
+
+		setFinger(p, idx);
+		return p;
+	}
+
+	/**
+	 * Remembers p as the node at position idx for the next getNode call.
+	 */
+	private void setFinger(IntNode p, int idx) {
+		finger = p;
+		fingerIdx = idx;
+		fingerModCount = modCount;
+	}
+
+	/**
+	 * Removes the item contained in node p.
+	 *
+	 * @param p the node containing the item.
+	 * @return the item was removed from the collection.
+	 */
+	private int remove(IntNode p) {
+		p.next.prev = p.prev;
+		p.prev.next = p.next;
+		theSize--;
+		modCount++;
+
+		return p.data;
+	}
+
+	/**
+	 * Obtains an iterator used to traverse the collection.
+	 *
+	 * @return an iterator positioned prior to the first element.
+	 */
+	public IntListIterator iterator() {
+		return new IntLinkedListIterator(0);
+	}
+
+	/**
+	 * Obtains an iterator used to traverse the collection bidirectionally.
+	 *
+	 * @return an iterator positioned prior to the requested element.
+	 * @param idx the index to start the iterator. Use size() to do complete reverse
+	 *            traversal. Use 0 to do complete forward traversal.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(), inclusive.
+	 */
+	public IntListIterator listIteraor(int idx) {
+		return new IntLinkedListIterator(idx);
+	}
+
+	/**
+	 * This is the doubly-linked list node, holding an int.
+	 */
+	private static class IntNode {
+		int data;
+		IntNode prev;
+		IntNode next;
+
+		IntNode(int d, IntNode p, IntNode n) {
+			data = d;
+			prev = p;
+			next = n;
+		}
+	}
+
+	/**
+	 * This is the implementation of the IntLinkedListIterator. It is the
+	 * LinkedListIterator of LinkedList, returning int values.
+	 */
+	private class IntLinkedListIterator implements IntListIterator {
+		private IntNode current;
+		private IntNode lastVisited = null;
+		private boolean lastMoveWasPrev = false;
+		private int expectedModCount = modCount;
+
+		public IntLinkedListIterator(int idx) {
+			current = getNode(idx, 0, size());
+		}
+
+		public boolean hasNext() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			return current != endMarker;
+		}
+
+		public int nextInt() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+
+			int nextItem = current.data;
+			lastVisited = current;
+			current = current.next;
+			lastMoveWasPrev = false;
+			return nextItem;
+		}
+
+		public void remove() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			if (lastVisited == null)
+				throw new IllegalStateException();
+
+			IntLinkedList.this.remove(lastVisited);
+			lastVisited = null;
+			if (lastMoveWasPrev)
+				current = current.next;
+			expectedModCount++;
+		}
+
+		public boolean hasPrevious() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			return current != beginMarker.next;
+		}
+
+		public int previousInt() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			if (!hasPrevious())
+				throw new NoSuchElementException();
+
+			current = current.prev;
+			lastVisited = current;
+			lastMoveWasPrev = true;
+			return current.data;
+		}
+	}
+
+}
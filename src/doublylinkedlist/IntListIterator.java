@@ -0,0 +1,39 @@
+package doublylinkedlist;
+
+/**
+ * 
+ * IntListIterator interface for IntLinkedList.
+ * It is the ListIterator interface, returning int values without boxing.
+ *
+ */
+public interface IntListIterator extends java.util.PrimitiveIterator.OfInt {
+
+	/**
+	 * Tests if there are items not yet iterated over.
+	 */
+	boolean hasNext();
+
+	/**
+	 * Obtains the next (as yet unseen) item in the collection.
+	 */
+	int nextInt();
+
+	/**
+	 * Test if there are more items in the collection when iterating in reverse.
+	 * @return true if there are more items in the collection when traversing in reverse.
+	 */
+	boolean hasPrevious();
+
+	/**
+	 * Obtains the previous item in the collection.
+	 * @return the previous (as yet unseen) item in the collection when traversing in reverse.
+	 */
+	int previousInt();
+
+	/**
+	 * Remove the last item returned by nextInt or previousInt.
+	 * Can only be called once after nextInt or previousInt.
+	 */
+	void remove();
+
+}
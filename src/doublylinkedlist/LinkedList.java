@@ -1,7 +1,29 @@
 package doublylinkedlist;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.ConcurrentModificationException;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
 
 /**
  * = doubly linked lists and circularly linked lists =
@@ -204,15 +226,69 @@ public class LinkedList<AnyType> extends AbstractCollection<AnyType> implements
 
 	private final Node<AnyType> NOT_FOUND = null;
 
-	private int theSize;
-	private Node<AnyType> beginMarker;
-	private Node<AnyType> endMarker;
-	private int modCount = 0;
+	// 31 * INVERSE_31 == 1 in int arithmetic; used to take an item off the
+	// end of the cached hashCode.
+	private static final int INVERSE_31 = 0xbdef7bdf;
+
+	// removeAll and retainAll copy an argument of at least this many items
+	// into a hash set, instead of calling its contains for every node.
+	private static final int HASH_MEMBERSHIP_MIN = 16;
+
+	// parallelSort never sorts runs shorter than this on their own thread.
+	private static final int MIN_SORT_RUN = 1 << 13;
+
+	private static final long serialVersionUID = 1L;
+
+	// Only poolLimit is serialized by default; writeObject writes the size,
+	// whether the index is on, and the items, and readObject rebuilds the rest.
+	private transient int theSize;
+	private transient Node<AnyType> beginMarker;
+	private transient Node<AnyType> endMarker;
+	private transient int modCount = 0;
+
+	// The finger remembers the last node reached by getNode and its index.
+	// It is only trusted while fingerModCount matches modCount.
+	private transient Node<AnyType> finger;
+	private transient int fingerIdx;
+	private transient int fingerModCount = -1;
+
+	// Unlinked nodes kept for reuse by add, chained through next.
+	// At most poolLimit nodes are kept; 0 turns the pool off.
+	private transient Node<AnyType> pool;
+	private transient int poolSize;
+	private final int poolLimit;
+
+	// Optional item -> nodes index used by findPos; null while it is off.
+	private transient HashMap<Object, IndexBucket<AnyType>> index;
+
+	// Cached hashCode, trusted while hashModCount matches modCount. Adds and
+	// removes at either end, and set, update it instead of dropping it.
+	private transient int hash;
+	private transient int hashModCount = -1;
+
+	// Old next links and items kept for snapshot iterators; null while none
+	// is open. Unlinked nodes are not released while it is in use.
+	private transient SnapshotLog<AnyType> snapshots;
 
 	/**
 	 * Construct an empty LinkedList.
 	 */
 	public LinkedList() {
+		this(0);
+	}
+
+	/**
+	 * Construct an empty LinkedList that keeps up to poolLimit removed nodes
+	 * and reuses them for later adds, so that a list used as a queue stops
+	 * allocating once it reaches its working size.
+	 * 
+	 * @param poolLimit the most removed nodes to keep; 0 keeps none.
+	 * @throws IllegalArgumentException if poolLimit is negative.
+	 */
+	public LinkedList(int poolLimit) {
+		if (poolLimit < 0)
+			throw new IllegalArgumentException("poolLimit: " + poolLimit);
+		this.poolLimit = poolLimit;
 		clear();
 	}
 
@@ -220,18 +296,26 @@ public class LinkedList<AnyType> extends AbstractCollection<AnyType> implements
 	 * Construct a LinkedList with same items as another Collection.
 	 */
 	public LinkedList(Collection<? extends AnyType> other) {
-		clear();
-		for (AnyType val : other)
-			add(val);
+		this(0);
+		addAll(other);
 	}
 
 	/**
 	 * Change the size of this collection to zero.
 	 */
 	public void clear() {
+		if (beginMarker != null && !snapshotsOpen())
+			for (Node<AnyType> p = beginMarker.next; p != endMarker;) {
+				Node<AnyType> next = p.next;
+				release(p);
+				p = next;
+			}
+
 		beginMarker = new Node<AnyType>(null, null, null);
 		endMarker = new Node<AnyType>(null, beginMarker, null);
 		beginMarker.next = endMarker;
+		if (index != null)
+			index.clear();
 
 		theSize = 0;
 		modCount++;
@@ -246,6 +330,278 @@ public class LinkedList<AnyType> extends AbstractCollection<AnyType> implements
 		return theSize;
 	}
 
+	/**
+	 * Obtains a primitive array view of the collection, by walking the nodes
+	 * directly.
+	 * 
+	 * @return the primitive array view.
+	 */
+	public Object[] toArray() {
+		Object[] copy = new Object[theSize];
+
+		int i = 0;
+		for (Node<AnyType> p = beginMarker.next; p != endMarker; p = p.next)
+			copy[i++] = p.data;
+		return copy;
+	}
+
+	/**
+	 * Obtains a primitive array view of the collection, by walking the nodes
+	 * directly.
+	 * 
+	 * @param arr the array to fill, if it is large enough; otherwise a new one
+	 *            of the same type is made.
+	 * @return the primitive array view.
+	 * @throws ArrayStoreException if an item is not of the array's type.
+	 */
+	public <OtherType> OtherType[] toArray(OtherType[] arr) {
+		if (arr.length < theSize)
+			arr = Arrays.copyOf(arr, theSize);
+		else if (theSize < arr.length)
+			arr[theSize] = null;
+		Object[] copy = arr;
+
+		int i = 0;
+		for (Node<AnyType> p = beginMarker.next; p != endMarker; p = p.next)
+			copy[i++] = p.data;
+		return arr;
+	}
+
+	/**
+	 * Obtains a primitive array view of the collection, in an array of exactly
+	 * size() items made by generator, such as String[]::new.
+	 * 
+	 * @param generator makes an array of the requested length.
+	 * @return the primitive array view.
+	 * @throws ArrayStoreException if an item is not of the array's type.
+	 */
+	public <OtherType> OtherType[] toArray(IntFunction<OtherType[]> generator) {
+		return toArray(generator.apply(theSize));
+	}
+
+	/**
+	 * Write the first items and the last items to out, with separator between
+	 * items, as AbstractCollection does, but reach the last items by walking
+	 * back from the endMarker instead of past the left out ones.
+	 * 
+	 * @param out       where to write.
+	 * @param separator what to write between 2 items.
+	 * @param first     how many items to write from the front.
+	 * @param last      how many items to write from the back.
+	 * @throws IllegalArgumentException if first or last is negative.
+	 * @throws IOException              if out does.
+	 */
+	public void writeTo(Appendable out, CharSequence separator, int first, int last) throws IOException {
+		checkTruncation(first, last);
+		Node<AnyType> p = beginMarker.next;
+
+		// theSize - last can not overflow; theSize - first - last could.
+		if (first >= theSize - last) {
+			for (int i = 0; p != endMarker; p = p.next)
+				writeItem(out, separator, i++, p.data);
+			return;
+		}
+
+		int skipped = theSize - first - last;
+		for (int i = 0; i < first; i++, p = p.next)
+			writeItem(out, separator, i, p.data);
+		writeSkipped(out, separator, first, skipped);
+
+		p = endMarker;
+		for (int i = 0; i < last; i++)
+			p = p.prev;
+		for (int i = first + 1; p != endMarker; p = p.next)
+			writeItem(out, separator, i++, p.data);
+	}
+
+	/**
+	 * Writes the size, then the items with codec, to out; readBinary reads
+	 * them back. Nothing but the items' own bytes and one int is written.
+	 * 
+	 * @param out   where to write.
+	 * @param codec writes one item.
+	 * @throws IOException if out or codec does.
+	 */
+	public void writeBinary(DataOutput out, DataCodec<? super AnyType> codec) throws IOException {
+		out.writeInt(theSize);
+		for (Node<AnyType> p = beginMarker.next; p != endMarker; p = p.next)
+			codec.write(out, p.data);
+	}
+
+	/**
+	 * Reads a list written by writeBinary with the same codec.
+	 * 
+	 * @param in    where to read from.
+	 * @param codec reads one item.
+	 * @return a new list of the items read.
+	 * @throws IOException if in or codec does, or the size read is negative.
+	 */
+	public static <AnyType> LinkedList<AnyType> readBinary(DataInput in, DataCodec<? extends AnyType> codec) throws IOException {
+		int size = in.readInt();
+		if (size < 0)
+			throw new IOException("negative size: " + size);
+
+		LinkedList<AnyType> result = new LinkedList<AnyType>();
+		for (int i = 0; i < size; i++)
+			result.append(codec.read(in));
+		return result;
+	}
+
+	/**
+	 * Writes poolLimit, the size, whether the index is on, and then the items,
+	 * one by one, instead of the graph of nodes.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(theSize);
+		out.writeBoolean(index != null);
+		for (Node<AnyType> p = beginMarker.next; p != endMarker; p = p.next)
+			out.writeObject(p.data);
+	}
+
+	/**
+	 * Reads what writeObject wrote, linking each item behind the last one.
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		int size = in.readInt();
+		boolean indexed = in.readBoolean();
+		if (size < 0)
+			throw new StreamCorruptedException("negative size: " + size);
+
+		fingerModCount = -1;
+		hashModCount = -1;
+		clear();
+		for (int i = 0; i < size; i++)
+			append((AnyType) in.readObject());
+		setIndexed(indexed);
+	}
+
+	/**
+	 * Links a new node holding x in front of the endMarker, and counts it, but
+	 * does not count a modification; for filling a list that nobody has seen.
+	 */
+	private void append(AnyType x) {
+		Node<AnyType> last = endMarker.prev;
+		last.next = new Node<AnyType>(x, last, endMarker);
+		endMarker.prev = last.next;
+		theSize++;
+	}
+
+	/**
+	 * Return the hashCode, the same as AbstractCollection's. It is computed
+	 * by walking the nodes, and then cached until the next change that
+	 * cannot update it in place.
+	 */
+	public int hashCode() {
+		if (hashModCount != modCount) {
+			int hashVal = 1;
+			for (Node<AnyType> p = beginMarker.next; p != endMarker; p = p.next)
+				hashVal = 31 * hashVal + hashOf(p.data);
+			hash = hashVal;
+			hashModCount = modCount;
+		}
+		return hash;
+	}
+
+	/**
+	 * Tells equals whether hashCode() is free to call. The cached hash is only
+	 * valid while hashModCount matches modCount.
+	 *
+	 * @return true if the cached hash is up to date.
+	 */
+	protected boolean hashCodeIsCached() {
+		return hashModCount == modCount;
+	}
+
+	/**
+	 * Return true if items in other collection are equal to items in this
+	 * collection. Two LinkedLists are rejected by size, and by cached hashCode
+	 * if both have one, before their nodes are walked side by side.
+	 */
+	public boolean equals(Object other) {
+		if (!(other instanceof LinkedList))
+			return super.equals(other);
+		if (other == this)
+			return true;
+
+		LinkedList<?> rhs = (LinkedList<?>) other;
+		if (theSize != rhs.theSize)
+			return false;
+		if (hashCodeIsCached() && rhs.hashCodeIsCached() && hash != rhs.hash)
+			return false;
+
+		Node<?> q = rhs.beginMarker.next;
+		for (Node<AnyType> p = beginMarker.next; p != endMarker; p = p.next, q = q.next)
+			if (p.data == null ? q.data != null : !p.data.equals(q.data))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Updates the cached hashCode, if there is one, for x about to be added at
+	 * idx. Only the ends can be updated; the one modCount change that follows
+	 * keeps it valid.
+	 * 
+	 * The code is 31^n + the sum of hash(item i) * 31^(n-1-i), so an item added
+	 * at the end multiplies it by 31 and adds hash(x), and one added at the
+	 * front adds 31^n * (30 + hash(x)).
+	 */
+	private void hashAdd(int idx, AnyType x) {
+		if (hashModCount != modCount)
+			return;
+
+		if (idx == theSize)
+			hash = 31 * hash + hashOf(x);
+		else if (idx == 0)
+			hash += pow31(theSize) * (30 + hashOf(x));
+		else
+			return;
+		hashModCount = modCount + 1;
+	}
+
+	/**
+	 * Updates the cached hashCode, if there is one, for node p about to be
+	 * removed; the reverse of hashAdd.
+	 */
+	private void hashRemove(Node<AnyType> p) {
+		if (hashModCount != modCount)
+			return;
+
+		if (p.next == endMarker)
+			hash = (hash - hashOf(p.data)) * INVERSE_31;
+		else if (p.prev == beginMarker)
+			hash -= pow31(theSize - 1) * (30 + hashOf(p.data));
+		else
+			return;
+		hashModCount = modCount + 1;
+	}
+
+	/**
+	 * Updates the cached hashCode, if there is one, for the item at idx
+	 * changing from oldVal to newVal.
+	 */
+	private void hashSet(int idx, AnyType oldVal, AnyType newVal) {
+		if (hashModCount == modCount)
+			hash += pow31(theSize - 1 - idx) * (hashOf(newVal) - hashOf(oldVal));
+	}
+
+	private static int hashOf(Object x) {
+		return x == null ? 0 : x.hashCode();
+	}
+
+	/**
+	 * Returns 31^n, wrapping around like the hashCode arithmetic.
+	 */
+	private static int pow31(int n) {
+		int result = 1;
+		for (int base = 31; n > 0; n >>>= 1, base *= base)
+			if ((n & 1) != 0)
+				result *= base;
+		return result;
+	}
+
 	/**
 	 * Tests if some item is in this collection.
 	 *   
@@ -265,6 +621,9 @@ public class LinkedList<AnyType> extends AbstractCollection<AnyType> implements
 	 *         NOT_FOUND if not found.
 	 */
 	private Node<AnyType> findPos(Object x) {
+		if (index != null)
+			return findIndexed(x);
+
 		for (Node<AnyType> p = beginMarker.next; p != endMarker; p = p.next)
 			if (x == null) {
 				if (p.data == null)
@@ -275,6 +634,101 @@ public class LinkedList<AnyType> extends AbstractCollection<AnyType> implements
 		return NOT_FOUND;
 	}
 
+	/**
+	 * Turns the item index on or off. While it is on, contains and
+	 * remove(Object) find the first matching item with a hash lookup instead of
+	 * a scan. Items must then have a hashCode consistent with equals, and must
+	 * not change while they are in the list.
+	 * 
+	 * @param on true to build the index, false to drop it.
+	 */
+	public void setIndexed(boolean on) {
+		if (!on) {
+			index = null;
+			return;
+		}
+		if (index != null)
+			return;
+
+		index = new HashMap<Object, IndexBucket<AnyType>>();
+		for (Node<AnyType> p = beginMarker.next; p != endMarker; p = p.next)
+			bucketOf(p.data).nodes.addLast(p);
+	}
+
+	/**
+	 * Tests if the item index is on.
+	 * 
+	 * @return true if contains and remove(Object) use the item index.
+	 */
+	public boolean isIndexed() {
+		return index != null;
+	}
+
+	/**
+	 * findPos through the index. A bucket that lost its order, because an
+	 * equal item was added in the middle of the list, is put back in order by
+	 * one scan.
+	 */
+	private Node<AnyType> findIndexed(Object x) {
+		IndexBucket<AnyType> bucket = index.get(x);
+
+		if (bucket == null)
+			return NOT_FOUND;
+
+		if (!bucket.ordered) {
+			bucket.nodes.clear();
+			for (Node<AnyType> p = beginMarker.next; p != endMarker; p = p.next)
+				if (x == null ? p.data == null : x.equals(p.data))
+					bucket.nodes.addLast(p);
+			bucket.ordered = true;
+		}
+		return bucket.nodes.peekFirst();
+	}
+
+	private IndexBucket<AnyType> bucketOf(AnyType x) {
+		IndexBucket<AnyType> bucket = index.get(x);
+
+		if (bucket == null) {
+			bucket = new IndexBucket<AnyType>();
+			index.put(x, bucket);
+		}
+		return bucket;
+	}
+
+	/**
+	 * Adds the linked node p to the index. Only a node at either end of the
+	 * list, or the first with its item, can be placed without a scan.
+	 */
+	private void indexAdd(Node<AnyType> p) {
+		IndexBucket<AnyType> bucket = bucketOf(p.data);
+
+		if (bucket.nodes.isEmpty() || p.next == endMarker)
+			bucket.nodes.addLast(p);
+		else if (p.prev == beginMarker)
+			bucket.nodes.addFirst(p);
+		else {
+			bucket.nodes.addLast(p);
+			bucket.ordered = false;
+		}
+	}
+
+	/**
+	 * Removes node p, still holding its item, from the index.
+	 */
+	private void indexRemove(Node<AnyType> p) {
+		IndexBucket<AnyType> bucket = index.get(p.data);
+
+		if (p.next == endMarker)
+			bucket.nodes.removeLastOccurrence(p);
+		else
+			bucket.nodes.removeFirstOccurrence(p);
+
+		if (bucket.nodes.isEmpty())
+			index.remove(p.data);
+		else if (bucket.nodes.size() == 1)
+			bucket.ordered = true;
+	}
+
 	/**
 	 * Adds an item to this collection, at the end.
 	 * 
@@ -303,11 +757,92 @@ public class LinkedList<AnyType> extends AbstractCollection<AnyType> implements
 	 */
 	public void add(int idx, AnyType x) {
 		Node<AnyType> p = getNode(idx, 0, size());               
-		Node<AnyType> newNode = new Node<AnyType>(x, p.prev, p);
+		hashAdd(idx, x);
+		Node<AnyType> newNode = newNode(x, p.prev, p);
+		saveVersion(newNode.prev);
 		newNode.prev.next = newNode;
 		p.prev = newNode;
 		theSize++;
 		modCount++;
+		setFinger(newNode, idx);
+		if (index != null)
+			indexAdd(newNode);
+	}
+
+	/**
+	 * Adds all items of another collection to this collection, at the end.
+	 * 
+	 * @param items the items to add.
+	 * @return true if this collection changed.
+	 */
+	public boolean addAll(Collection<? extends AnyType> items) {
+		return addAll(size(), items);
+	}
+
+	/**
+	 * Adds all items of another collection, in order, at position idx. Items at
+	 * or after that position are slid higher.
+	 * 
+	 * @param idx   position to add at.
+	 * @param items the items to add; may be this list.
+	 * @return true if this list changed.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(),
+	 *                                   inclusive.
+	 */
+	
+	/**
+	 * 1. get the original node at the index that want to insert, once
+	 * 2. build a private chain of new nodes, hanging off a scratch header;
+	 *    another LinkedList is read node by node, without an iterator
+	 * 3. splice the whole chain in front of p with four link changes,
+	 *    and count the change once
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean addAll(int idx, Collection<? extends AnyType> items) {
+		Node<AnyType> p = getNode(idx, 0, size());
+		Node<AnyType> header = new Node<AnyType>(null, null, null);
+		Node<AnyType> last = header;
+		int count = 0;
+
+		if (items instanceof LinkedList) {
+			LinkedList<? extends AnyType> other = (LinkedList<? extends AnyType>) items;
+			for (Node<? extends AnyType> q = other.beginMarker.next; q != other.endMarker; q = q.next) {
+				last.next = newNode(q.data, last, null);
+				last = last.next;
+				count++;
+			}
+		} else
+			for (AnyType x : items) {
+				last.next = newNode(x, last, null);
+				last = last.next;
+				count++;
+			}
+
+		if (count == 0)
+			return false;
+
+		Node<AnyType> first = header.next;
+		first.prev = p.prev;
+		last.next = p;
+		saveVersion(p.prev);
+		p.prev.next = first;
+		p.prev = last;
+		theSize += count;
+		modCount++;
+		setFinger(first, idx);
+
+		if (index != null) {
+			if (p == endMarker)
+				for (Node<AnyType> q = first; q != p; q = q.next)
+					bucketOf(q.data).nodes.addLast(q);
+			else if (first.prev == beginMarker)
+				for (Node<AnyType> q = last; q != beginMarker; q = q.prev)
+					bucketOf(q.data).nodes.addFirst(q);
+			else
+				for (Node<AnyType> q = first; q != p; q = q.next)
+					indexAdd(q);
+		}
+		return true;
 	}
 
 	/**
@@ -382,7 +917,13 @@ public class LinkedList<AnyType> extends AbstractCollection<AnyType> implements
 		Node<AnyType> p = getNode(idx);
 		AnyType oldVal = p.data;
 
+		if (index != null)
+			indexRemove(p);
+		hashSet(idx, oldVal, newVal);
+		saveVersion(p);
 		p.data = newVal;
+		if (index != null)
+			indexAdd(p);
 		return oldVal;
 	}
 
@@ -462,31 +1003,52 @@ public class LinkedList<AnyType> extends AbstractCollection<AnyType> implements
 	
 	/**
 	 * 1. Check the node is at the valid index
-	 * 2. If the index is closer to the first index
-	 *    -> search from the first
-	 * 3. If the index is closer to the last index
-	 *    -> search from the last
-	 * 
+	 * 2. Pick the nearest starting point: the first node, the endMarker,
+	 *    or the finger left behind by the previous call
+	 * 3. Step forward or backward from there, and remember where we stopped
+	 *    -> sequential index access costs O(1) per call
 	 */
 	private Node<AnyType> getNode(int idx, int lower, int upper) {
 		Node<AnyType> p;
+		int pos;
 
 		if (idx < lower || idx > upper)
 			throw new IndexOutOfBoundsException("getNode index: " + idx + "; size: " + size());
 
 		if (idx < size() / 2) {
 			p = beginMarker.next;
-			for (int i = 0; i < idx; i++)
-				p = p.next;
+			pos = 0;
 		} else {
 			p = endMarker;
-			for (int i = size(); i > idx; i--)
-				p = p.prev;
+			pos = size();
 		}
 
+		if (fingerModCount == modCount && Math.abs(idx - fingerIdx) < Math.abs(idx - pos)) {
+			p = finger;
+			pos = fingerIdx;
+		}
+
+		for (; pos < idx; pos++)
+			p = p.next;
+		for (; pos > idx; pos--)
+			p = p.prev;
+
+		setFinger(p, idx);
 		return p;
 	}
 
+	/**
+	 * Remembers p as the node at position idx for the next getNode call.
+	 * 
+	 * @param p   the node at position idx (the endMarker if idx is size()).
+	 * @param idx the position of p.
+	 */
+	private void setFinger(Node<AnyType> p, int idx) {
+		finger = p;
+		fingerIdx = idx;
+		fingerModCount = modCount;
+	}
+
 	/**
 	 * Removes an item from this collection.
 	 * 
@@ -494,7 +1056,12 @@ public class LinkedList<AnyType> extends AbstractCollection<AnyType> implements
 	 * @return the item was removed from the collection.
 	 */
 	public AnyType remove(int idx) {
-		return remove(getNode(idx));
+		Node<AnyType> p = getNode(idx);
+		Node<AnyType> successor = p.next;
+		AnyType removed = remove(p);
+
+		setFinger(successor, idx);
+		return removed;
 	}
 
 	/**
@@ -504,12 +1071,594 @@ public class LinkedList<AnyType> extends AbstractCollection<AnyType> implements
 	 * @return the item was removed from the collection.
 	 */
 	private AnyType remove(Node<AnyType> p) {
+		AnyType removed = p.data;
+
+		if (index != null)
+			indexRemove(p);
+		hashRemove(p);
 		p.next.prev = p.prev;
+		saveVersion(p.prev);
 		p.prev.next = p.next;
 		theSize--;
 		modCount++;
 
-		return p.data;
+		if (!snapshotsOpen())
+			release(p);
+		return removed;
+	}
+
+	/**
+	 * Removes every item for which filter returns true, in one walk of the
+	 * nodes. The whole removal counts as one modification. While the item
+	 * index is on, it is rebuilt once afterwards instead of being updated per
+	 * node. If filter throws, the items removed so far stay removed.
+	 * 
+	 * @param filter returns true for the items to remove.
+	 * @return true if this list changed.
+	 */
+	public boolean removeIf(Predicate<? super AnyType> filter) {
+		Objects.requireNonNull(filter);
+		HashMap<Object, IndexBucket<AnyType>> savedIndex = index;
+		int removed = 0;
+
+		index = null;
+		try {
+			for (Node<AnyType> p = beginMarker.next; p != endMarker;) {
+				Node<AnyType> next = p.next;
+				if (filter.test(p.data)) {
+					saveVersion(p.prev);
+					p.prev.next = next;
+					next.prev = p.prev;
+					if (!snapshotsOpen())
+						release(p);
+					removed++;
+				}
+				p = next;
+			}
+		} finally {
+			index = savedIndex;
+			if (removed > 0) {
+				theSize -= removed;
+				modCount++;
+				if (index != null) {
+					index = null;
+					setIndexed(true);
+				}
+			}
+		}
+		return removed > 0;
+	}
+
+	/**
+	 * Removes every item that is also in items, in one walk of the nodes.
+	 * Unless items is small, its items are first put in a hash set, so that the
+	 * walk takes O(N) time however many items there are; they then need a
+	 * hashCode consistent with equals.
+	 * 
+	 * @param items the items to remove.
+	 * @return true if this list changed.
+	 */
+	public boolean removeAll(Collection<?> items) {
+		final Predicate<Object> member = membership(items);
+		return removeIf(new Predicate<AnyType>() {
+			public boolean test(AnyType x) {
+				return member.test(x);
+			}
+		});
+	}
+
+	/**
+	 * Removes every item that is not in items, in one walk of the nodes.
+	 * Unless items is small, its items are first put in a hash set, as for
+	 * removeAll.
+	 * 
+	 * @param items the items to keep.
+	 * @return true if this list changed.
+	 */
+	public boolean retainAll(Collection<?> items) {
+		final Predicate<Object> member = membership(items);
+		return removeIf(new Predicate<AnyType>() {
+			public boolean test(AnyType x) {
+				return !member.test(x);
+			}
+		});
+	}
+
+	/**
+	 * Returns a test for being in items: items.contains itself while items
+	 * has at most HASH_MEMBERSHIP_MIN items, and a hash set of a copy of them
+	 * otherwise.
+	 */
+	private static Predicate<Object> membership(final Collection<?> items) {
+		if (items.size() < HASH_MEMBERSHIP_MIN)
+			return new Predicate<Object>() {
+				public boolean test(Object x) {
+					return items.contains(x);
+				}
+			};
+
+		final HashSet<Object> set = new HashSet<Object>();
+		for (Object x : items)
+			set.add(x);
+		return new Predicate<Object>() {
+			public boolean test(Object x) {
+				return set.contains(x);
+			}
+		};
+	}
+
+	/**
+	 * Returns a node holding x between prev and next, taken from the pool if
+	 * it has one.
+	 */
+	private Node<AnyType> newNode(AnyType x, Node<AnyType> prev, Node<AnyType> next) {
+		if (pool == null)
+			return new Node<AnyType>(x, prev, next);
+
+		Node<AnyType> p = pool;
+		pool = p.next;
+		poolSize--;
+
+		p.data = x;
+		p.prev = prev;
+		p.next = next;
+		return p;
+	}
+
+	/**
+	 * Drops the links and data of an unlinked node, so that it does not keep
+	 * the list (or an old item) reachable, and keeps it in the pool if there is
+	 * room.
+	 */
+	private void release(Node<AnyType> p) {
+		p.data = null;
+		p.prev = null;
+		p.next = null;
+
+		if (poolSize < poolLimit) {
+			p.next = pool;
+			pool = p;
+			poolSize++;
+		}
+	}
+
+	/**
+	 * Moves the items between two iterator positions to the end of another
+	 * list. The items are those that from.next() would return up to, but not
+	 * including, the one to.next() would return. Only links change, so this
+	 * takes constant time. If anything moves, both lists count as modified, so
+	 * every iterator over them, including from and to, is invalidated, and so
+	 * is every snapshot iterator over this list.
+	 * 
+	 * @param other the list that receives the items.
+	 * @param from  an iterator over this list at the first item to move.
+	 * @param to    an iterator over this list just past the last item to move.
+	 * @throws IllegalArgumentException        if other is this list, if an
+	 *                                         iterator is not over this list,
+	 *                                         or if to is before from.
+	 * @throws ConcurrentModificationException if an iterator is stale.
+	 */
+	public void transferTo(LinkedList<AnyType> other, ListIterator<AnyType> from, ListIterator<AnyType> to) {
+		if (other == this)
+			throw new IllegalArgumentException("transfer to the same list");
+
+		LinkedListIterator start = ownIterator(from);
+		LinkedListIterator end = ownIterator(to);
+		int count = end.nextIndex - start.nextIndex;
+
+		if (count < 0)
+			throw new IllegalArgumentException("to is before from");
+		if (count > 0)
+			moveRun(start.current, end.current.prev, count, other, other.endMarker);
+	}
+
+	/**
+	 * Splits this list in two. This list keeps the items before position idx,
+	 * and the items from idx on are moved, in constant time once idx is found,
+	 * to a new list.
+	 * 
+	 * @param idx the position of the first item to move.
+	 * @return a new list holding the items that were at idx and after.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(),
+	 *                                   inclusive.
+	 */
+	public LinkedList<AnyType> splitAt(int idx) {
+		Node<AnyType> p = getNode(idx, 0, size());
+		LinkedList<AnyType> tail = new LinkedList<AnyType>();
+
+		if (p != endMarker)
+			moveRun(p, endMarker.prev, size() - idx, tail, tail.endMarker);
+		return tail;
+	}
+
+	/**
+	 * Moves every item of other to the end of this list, in constant time.
+	 * other is left empty.
+	 * 
+	 * @param other the list to empty into this one.
+	 * @throws IllegalArgumentException if other is this list.
+	 */
+	public void concat(LinkedList<AnyType> other) {
+		if (other == this)
+			throw new IllegalArgumentException("concat with the same list");
+
+		if (!other.isEmpty())
+			other.moveRun(other.beginMarker.next, other.endMarker.prev, other.size(), this, endMarker);
+	}
+
+	/**
+	 * Returns itr as an iterator of this list that is still valid.
+	 */
+	private LinkedListIterator ownIterator(ListIterator<AnyType> itr) {
+		if (!(itr instanceof LinkedList.LinkedListIterator) || ((LinkedListIterator) itr).owner() != this)
+			throw new IllegalArgumentException("not an iterator over this list");
+
+		LinkedListIterator own = (LinkedListIterator) itr;
+		if (own.expectedModCount != modCount)
+			throw new ConcurrentModificationException();
+		return own;
+	}
+
+	/**
+	 * Moves the run of count nodes first .. last of this list in front of node
+	 * p of list dest. Both lists change their size and modCount once.
+	 */
+	private void moveRun(Node<AnyType> first, Node<AnyType> last, int count, LinkedList<AnyType> dest, Node<AnyType> p) {
+		if (index != null) {
+			if (count == theSize)
+				index.clear();
+			else
+				for (Node<AnyType> q = first; q != last.next; q = q.next)
+					indexRemove(q);
+		}
+
+		if (snapshots != null) {
+			snapshots.broken = true;
+			snapshots = null;
+		}
+		first.prev.next = last.next;
+		last.next.prev = first.prev;
+		theSize -= count;
+		modCount++;
+
+		first.prev = p.prev;
+		last.next = p;
+		dest.saveVersion(p.prev);
+		p.prev.next = first;
+		p.prev = last;
+		dest.theSize += count;
+		dest.modCount++;
+
+		if (dest.index != null)
+			for (Node<AnyType> q = first; q != p; q = q.next)
+				if (p == dest.endMarker)
+					dest.bucketOf(q.data).nodes.addLast(q);
+				else
+					dest.indexAdd(q);
+	}
+
+	/**
+	 * Sorts the list by relinking its nodes, with a bottom-up merge sort. The
+	 * sort is stable, takes O(N log N) time and allocates nothing per item. It
+	 * counts as one modification. If cmp throws, the list keeps all its items,
+	 * in some order, and the exception is passed on.
+	 * 
+	 * @param cmp the order to sort by; null for the items' natural order.
+	 * @throws ClassCastException if cmp is null and the items are not
+	 *                            mutually Comparable.
+	 */
+	
+	/**
+	 * 1. cut the chain off the markers and treat it as singly linked
+	 * 2. for runs of length 1, 2, 4, ...: walk the chain, merging each pair of
+	 *    neighbouring runs onto the tail of a new chain, p's run first on ties
+	 * 3. stop after a pass that did a single merge, and put back the prev links
+	 */
+	public void sort(Comparator<? super AnyType> cmp) {
+		if (theSize < 2)
+			return;
+
+		ChainSorter<AnyType> sorter = new ChainSorter<AnyType>(cmp, detachChain());
+		try {
+			sorter.sort();
+		} finally {
+			relink(sorter.head);
+		}
+	}
+
+	/**
+	 * Sorts the list like sort, but on several threads of the common
+	 * ForkJoinPool. The chain of nodes is cut into runs, the runs are sorted
+	 * at the same time, and pairs of sorted runs are merged, also at the same
+	 * time, by relinking; no item is copied into an array. The final merges
+	 * each walk a large part of the list on one thread, so the time falls
+	 * with the number of cores, but by less than that factor. Short lists, or
+	 * a pool of one thread, are sorted by sort.
+	 * 
+	 * @param cmp the order to sort by; null for the items' natural order.
+	 * @throws ClassCastException if cmp is null and the items are not
+	 *                            mutually Comparable.
+	 */
+	
+	/**
+	 * 1. cut the chain off the markers, then into about 4 runs per thread,
+	 *    each one null-terminated; only the array of run heads is allocated
+	 * 2. a ParallelSortTask over runs lo..hi sorts a single run itself,
+	 *    or splits the range in half, sorts both halves at once and merges them
+	 * 3. put back the prev links
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void parallelSort(Comparator<? super AnyType> cmp) {
+		int threads = ForkJoinPool.getCommonPoolParallelism();
+		if (threads < 2 || theSize < 2 * MIN_SORT_RUN) {
+			sort(cmp);
+			return;
+		}
+
+		int runLength = Math.max(MIN_SORT_RUN, (theSize + 4 * threads - 1) / (4 * threads));
+		Node<AnyType>[] runs = new Node[(theSize + runLength - 1) / runLength];
+		Node<AnyType> p = detachChain();
+		for (int r = 0; r < runs.length; r++) {
+			runs[r] = p;
+			for (int i = 1; i < runLength && p.next != null; i++)
+				p = p.next;
+			Node<AnyType> next = p.next;
+			p.next = null;
+			p = next;
+		}
+
+		ParallelSortTask<AnyType> task = new ParallelSortTask<AnyType>(cmp, runs, 0, runs.length);
+		try {
+			ForkJoinPool.commonPool().invoke(task);
+		} finally {
+			relink(task.sorter.head);
+		}
+	}
+
+	/**
+	 * Cuts the items off the markers, as a null-terminated chain of next links,
+	 * after saving their links for open snapshots.
+	 * 
+	 * @return the first node of the chain.
+	 */
+	private Node<AnyType> detachChain() {
+		if (snapshotsOpen())
+			for (Node<AnyType> p = beginMarker; p != endMarker; p = p.next)
+				snapshots.save(p);
+
+		endMarker.prev.next = null;
+		return beginMarker.next;
+	}
+
+	/**
+	 * Makes the null-terminated chain of next links starting at head the
+	 * contents of the list: sets the prev links, ties the ends to the markers,
+	 * and counts one modification.
+	 */
+	private void relink(Node<AnyType> head) {
+		Node<AnyType> prev = beginMarker;
+		for (Node<AnyType> p = head; p != null; p = p.next) {
+			prev.next = p;
+			p.prev = prev;
+			prev = p;
+		}
+		prev.next = endMarker;
+		endMarker.prev = prev;
+		modCount++;
+
+		if (index != null)
+			for (IndexBucket<AnyType> bucket : index.values())
+				if (bucket.nodes.size() > 1)
+					bucket.ordered = false;
+	}
+
+	/**
+	 * Sorts and merges null-terminated chains of next links. head always holds
+	 * every node it was given, in one chain: if cmp throws, the unmerged nodes
+	 * are linked back in behind the merged ones before the exception is passed
+	 * on.
+	 */
+	private static class ChainSorter<AnyType> {
+		final Comparator<? super AnyType> cmp;
+		Node<AnyType> head;
+
+		@SuppressWarnings("unchecked")
+		ChainSorter(Comparator<? super AnyType> cmp, Node<AnyType> head) {
+			this.cmp = cmp != null ? cmp : (Comparator<? super AnyType>) Comparator.naturalOrder();
+			this.head = head;
+		}
+
+		/**
+		 * Bottom-up merge sort of the chain, stable.
+		 */
+		void sort() {
+			Node<AnyType> tail = null;
+			Node<AnyType> p = null;
+			Node<AnyType> q = null;
+			int psize = 0;
+
+			try {
+				for (int k = 1;; k *= 2) {
+					p = head;
+					head = null;
+					tail = null;
+					int merges = 0;
+
+					while (p != null) {
+						merges++;
+						q = p;
+						psize = 0;
+						while (psize < k && q != null) {
+							psize++;
+							q = q.next;
+						}
+
+						int qsize = k;
+						while (psize > 0 || (qsize > 0 && q != null)) {
+							Node<AnyType> e;
+							if (psize == 0) {
+								e = q;
+								q = q.next;
+								qsize--;
+							} else if (qsize == 0 || q == null || cmp.compare(p.data, q.data) <= 0) {
+								e = p;
+								p = p.next;
+								psize--;
+							} else {
+								e = q;
+								q = q.next;
+								qsize--;
+							}
+
+							if (tail == null)
+								head = e;
+							else
+								tail.next = e;
+							tail = e;
+						}
+						p = q;
+					}
+					tail.next = null;
+					psize = 0;
+
+					if (merges <= 1)
+						break;
+				}
+			} catch (RuntimeException | Error e) {
+				// Put the unmerged nodes, p's run and then q's chain, behind the merged ones.
+				Node<AnyType> rest = q;
+				if (psize > 0) {
+					Node<AnyType> last = p;
+					for (int i = 1; i < psize; i++)
+						last = last.next;
+					last.next = q;
+					rest = p;
+				}
+				if (tail == null)
+					head = rest;
+				else
+					tail.next = rest;
+				throw e;
+			}
+		}
+
+		/**
+		 * Merges the sorted chain b into the sorted chain head, head's nodes
+		 * first on ties.
+		 */
+		void merge(Node<AnyType> b) {
+			Node<AnyType> a = head;
+			Node<AnyType> first = null;
+			Node<AnyType> tail = null;
+
+			try {
+				while (a != null && b != null) {
+					Node<AnyType> e;
+					if (cmp.compare(a.data, b.data) <= 0) {
+						e = a;
+						a = a.next;
+					} else {
+						e = b;
+						b = b.next;
+					}
+
+					if (tail == null)
+						first = e;
+					else
+						tail.next = e;
+					tail = e;
+				}
+			} catch (RuntimeException | Error e) {
+				head = a;
+				append(b);
+				if (tail != null) {
+					tail.next = head;
+					head = first;
+				}
+				throw e;
+			}
+
+			if (tail == null)
+				head = a != null ? a : b;
+			else {
+				tail.next = a != null ? a : b;
+				head = first;
+			}
+		}
+
+		/**
+		 * Links the chain b behind the chain head.
+		 */
+		void append(Node<AnyType> b) {
+			if (head == null) {
+				head = b;
+				return;
+			}
+
+			Node<AnyType> last = head;
+			while (last.next != null)
+				last = last.next;
+			last.next = b;
+		}
+	}
+
+	/**
+	 * Sorts the runs lo..hi-1 and leaves them merged, in order, in sorter. If
+	 * cmp throws in either half, the other half is still waited for and its
+	 * chain appended, so that no node is lost.
+	 */
+	private static class ParallelSortTask<AnyType> extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Comparator<? super AnyType> cmp;
+		private final Node<AnyType>[] runs;
+		private final int lo;
+		private final int hi;
+		ChainSorter<AnyType> sorter;
+
+		ParallelSortTask(Comparator<? super AnyType> cmp, Node<AnyType>[] runs, int lo, int hi) {
+			this.cmp = cmp;
+			this.runs = runs;
+			this.lo = lo;
+			this.hi = hi;
+			if (hi - lo == 1)
+				sorter = new ChainSorter<AnyType>(cmp, runs[lo]);
+		}
+
+		protected void compute() {
+			if (hi - lo == 1) {
+				sorter.sort();
+				return;
+			}
+
+			int mid = (lo + hi) >>> 1;
+			ParallelSortTask<AnyType> left = new ParallelSortTask<AnyType>(cmp, runs, lo, mid);
+			ParallelSortTask<AnyType> right = new ParallelSortTask<AnyType>(cmp, runs, mid, hi);
+			Throwable failure = null;
+
+			right.fork();
+			try {
+				left.compute();
+			} catch (RuntimeException | Error e) {
+				failure = e;
+			}
+			try {
+				right.join();
+			} catch (RuntimeException | Error e) {
+				if (failure == null)
+					failure = e;
+			}
+
+			sorter = left.sorter;
+			if (failure == null)
+				sorter.merge(right.sorter.head);
+			else {
+				sorter.append(right.sorter.head);
+				if (failure instanceof Error)
+					throw (Error) failure;
+				throw (RuntimeException) failure;
+			}
+		}
 	}
 
 	/**
@@ -536,18 +1685,265 @@ public class LinkedList<AnyType> extends AbstractCollection<AnyType> implements
 		return new LinkedListIterator(idx);
 	}
 
+	/**
+	 * Obtains an Iterator over the list as it is now. Later changes to the
+	 * list do not show, and do not make it throw, so a long scan needs neither
+	 * a copy of the list nor a pause in the writers. Like the rest of the
+	 * list, it is not safe for concurrent use by several threads.
+	 * 
+	 * While a snapshot iterator is open, each changed link or item keeps its old
+	 * value, once per snapshot, and removed nodes are not reused. An iterator is
+	 * closed when it reaches the end or is garbage collected. Moving items out
+	 * with transferTo, splitAt or concat invalidates it.
+	 * 
+	 * @return an iterator positioned prior to the first element; remove is not
+	 *         supported.
+	 */
+	public Iterator<AnyType> snapshotIterator() {
+		return new SnapshotIterator();
+	}
+
+	/**
+	 * Tests if a snapshot iterator is still open, and drops the snapshot log if
+	 * none is.
+	 */
+	private boolean snapshotsOpen() {
+		if (snapshots != null && !snapshots.isOpen())
+			snapshots = null;
+		return snapshots != null;
+	}
+
+	/**
+	 * Keeps the current next link and item of p for the open snapshot
+	 * iterators; called before either changes.
+	 */
+	private void saveVersion(Node<AnyType> p) {
+		if (snapshotsOpen())
+			snapshots.save(p);
+	}
+
+	/**
+	 * Obtains a Spliterator that walks the nodes directly and splits its run
+	 * of nodes in half, so that parallel streams get balanced work.
+	 * 
+	 * @return a SIZED, SUBSIZED and ORDERED spliterator over the whole list.
+	 */
+	public Spliterator<AnyType> spliterator() {
+		return new LinkedListSpliterator(beginMarker.next, size());
+	}
+
+	/**
+	 * This is the implementation of the LinkedListSpliterator. It covers the
+	 * run of remaining nodes starting at current, and is fail-fast like the
+	 * iterator.
+	 */
+	private class LinkedListSpliterator implements Spliterator<AnyType> {
+		private static final int MIN_SPLIT = 64;
+
+		private Node<AnyType> current;
+		private int remaining;
+		private final int expectedModCount = modCount;
+
+		LinkedListSpliterator(Node<AnyType> first, int count) {
+			current = first;
+			remaining = count;
+		}
+
+		public boolean tryAdvance(Consumer<? super AnyType> action) {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			if (remaining == 0)
+				return false;
+
+			AnyType item = current.data;
+			current = current.next;
+			remaining--;
+			action.accept(item);
+			return true;
+		}
+
+		public void forEachRemaining(Consumer<? super AnyType> action) {
+			Node<AnyType> p = current;
+			for (int n = remaining; n > 0; n--) {
+				action.accept(p.data);
+				p = p.next;
+			}
+			current = p;
+			remaining = 0;
+
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+		}
+
+		/**
+		 * Hands the first half of the run to a new spliterator, keeping the
+		 * second half. Finding the middle walks half the run, which the
+		 * caller pays once per level of splitting.
+		 */
+		public Spliterator<AnyType> trySplit() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			if (remaining < 2 * MIN_SPLIT)
+				return null;
+
+			int half = remaining / 2;
+			Node<AnyType> first = current;
+			for (int i = 0; i < half; i++)
+				current = current.next;
+			remaining -= half;
+
+			return new LinkedListSpliterator(first, half);
+		}
+
+		public long estimateSize() {
+			return remaining;
+		}
+
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+		}
+	}
+
+	/**
+	 * The nodes holding equal items, in list order unless ordered is false.
+	 */
+	private static class IndexBucket<AnyType> {
+		ArrayDeque<Node<AnyType>> nodes = new ArrayDeque<Node<AnyType>>();
+		boolean ordered = true;
+	}
+
+	/**
+	 * The next link and item a node had before its first change in a version.
+	 * older is the same node's record for an earlier version.
+	 */
+	private static class NodeVersion<AnyType> {
+		final long version;
+		final Node<AnyType> next;
+		final AnyType data;
+		final NodeVersion<AnyType> older;
+
+		NodeVersion(long version, Node<AnyType> next, AnyType data, NodeVersion<AnyType> older) {
+			this.version = version;
+			this.next = next;
+			this.data = data;
+			this.older = older;
+		}
+	}
+
+	/**
+	 * The versions seen by the open snapshot iterators. Each snapshot takes the
+	 * current version number and starts a new one; a node's state as of a
+	 * snapshot is its oldest record from a later version, or, if it has none,
+	 * its live state.
+	 */
+	private static class SnapshotLog<AnyType> {
+		long version;
+		boolean broken;
+		private final IdentityHashMap<Node<AnyType>, NodeVersion<AnyType>> history = new IdentityHashMap<Node<AnyType>, NodeVersion<AnyType>>();
+		private final HashSet<Reference<?>> open = new HashSet<Reference<?>>();
+		private final ReferenceQueue<Object> collected = new ReferenceQueue<Object>();
+
+		Reference<?> open(Object itr) {
+			Reference<?> ref = new WeakReference<Object>(itr, collected);
+			open.add(ref);
+			return ref;
+		}
+
+		void close(Reference<?> ref) {
+			ref.clear();
+			open.remove(ref);
+		}
+
+		boolean isOpen() {
+			for (Reference<?> ref; (ref = collected.poll()) != null;)
+				open.remove(ref);
+			return !open.isEmpty();
+		}
+
+		void save(Node<AnyType> p) {
+			NodeVersion<AnyType> newest = history.get(p);
+			if (newest == null || newest.version != version)
+				history.put(p, new NodeVersion<AnyType>(version, p.next, p.data, newest));
+		}
+
+		NodeVersion<AnyType> find(Node<AnyType> p, long seen) {
+			NodeVersion<AnyType> found = null;
+			for (NodeVersion<AnyType> v = history.get(p); v != null && v.version > seen; v = v.older)
+				found = v;
+			return found;
+		}
+	}
+
+	/**
+	 * This is the implementation of the SnapshotIterator. It walks the next
+	 * links as they were when it was created, reading older ones from the
+	 * snapshot log wherever a node has changed since.
+	 */
+	private class SnapshotIterator implements Iterator<AnyType> {
+		private final SnapshotLog<AnyType> log;
+		private final long seen;
+		private final Node<AnyType> end = endMarker;
+		private Node<AnyType> current = beginMarker.next;
+		private Reference<?> ref;
+
+		public SnapshotIterator() {
+			if (!snapshotsOpen())
+				snapshots = new SnapshotLog<AnyType>();
+			log = snapshots;
+			seen = log.version++;
+			ref = log.open(this);
+			if (current == end)
+				close();
+		}
+
+		public boolean hasNext() {
+			if (log.broken)
+				throw new ConcurrentModificationException();
+			return current != end;
+		}
+
+		public AnyType next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+
+			NodeVersion<AnyType> old = log.find(current, seen);
+			AnyType nextItem = old == null ? current.data : old.data;
+			current = old == null ? current.next : old.next;
+			if (current == end)
+				close();
+			return nextItem;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		private void close() {
+			if (ref != null) {
+				log.close(ref);
+				ref = null;
+			}
+		}
+	}
+
 	/**
 	 * This is the implementation of the LinkedListIterator. It maintains a notion
 	 * of a current position and of course the implicit reference to the LinkedList.
 	 */
 	private class LinkedListIterator implements ListIterator<AnyType> {
 		private Node<AnyType> current;
+		private int nextIndex;
 		private Node<AnyType> lastVisited = null;
 		private boolean lastMoveWasPrev = false;
 		private int expectedModCount = modCount;
 
 		public LinkedListIterator(int idx) {
 			current = getNode(idx, 0, size());
+			nextIndex = idx;
+		}
+
+		private LinkedList<AnyType> owner() {
+			return LinkedList.this;
 		}
 
 		public boolean hasNext() {
@@ -563,6 +1959,7 @@ public class LinkedList<AnyType> extends AbstractCollection<AnyType> implements
 			AnyType nextItem = current.data;
 			lastVisited = current;
 			current = current.next;
+			nextIndex++;
 			lastMoveWasPrev = false;
 			return nextItem;
 		}
@@ -573,10 +1970,12 @@ public class LinkedList<AnyType> extends AbstractCollection<AnyType> implements
 			if (lastVisited == null)
 				throw new IllegalStateException();
 
-			LinkedList.this.remove(lastVisited);
-			lastVisited = null;
 			if (lastMoveWasPrev)
 				current = current.next;
+			else
+				nextIndex--;
+			LinkedList.this.remove(lastVisited);
+			lastVisited = null;
 			expectedModCount++;
 		}
 
@@ -593,6 +1992,7 @@ public class LinkedList<AnyType> extends AbstractCollection<AnyType> implements
 				throw new NoSuchElementException();
 
 			current = current.prev;
+			nextIndex--;
 			lastVisited = current;
 			lastMoveWasPrev = true;
 			return current.data;
@@ -30,6 +30,15 @@ public interface List<AnyType> extends Collection<AnyType>{
 	AnyType get(int idx);
 	AnyType set(int idx, AnyType newVal);
 	
+	/**
+	 * Adds all items of another collection, in their iteration order,
+	 * at position idx. Items at or after idx are slid higher.
+	 * 
+	 * @return true if this list changed.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(), inclusive.
+	 */
+	boolean addAll(int idx, Collection<? extends AnyType> items);
+	
 	/**
 	 * Obtains a ListIterator object used to traverse 
 	 * the collection bidirectionally.
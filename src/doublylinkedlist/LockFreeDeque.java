@@ -0,0 +1,496 @@
+package doublylinkedlist;
+
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * = lock-free deques =
+ *
+ * - LinkedList is not safe to use from several threads at once.
+ * - Wrapping every call in one lock works, but then only one thread at a time makes progress.
+ *
+ * - A lock-free deque never blocks: every thread tries to apply its change with a
+ *   compare-and-set (CAS), and if another thread got there first, it reads again and retries.
+ * - Some thread always succeeds, so the structure as a whole always makes progress.
+ *
+ * - The algorithm is the one of Maged Michael,
+ *   "CAS-Based Lock-Free Algorithm for Shared Deques" (Euro-Par 2003).
+ *
+ *   - The ends of the deque are kept in one immutable Anchor object:
+ *     the first node, the last node, and a status.
+ *   - Every change to an end is a single CAS that replaces the whole Anchor.
+ *   - A push is done in 2 steps:
+ *     1. The new node is linked towards the old end, and the Anchor is swapped
+ *        for one whose status says "push at the last end in progress".
+ *     2. The old end's link is pointed at the new node, and the status is set back to stable.
+ *   - Any thread that sees an unstable Anchor first finishes step 2 for the thread that started it,
+ *     so nobody waits for anybody.
+ *   - A pop is a single CAS of the Anchor, moving the end one node inwards.
+ *     Then the link from the new end back to the popped node is cleared,
+ *     so popped nodes and their items can be collected.
+ *   - The link is cleared by a CAS, in case a push has already pointed it at a new node;
+ *     a push that finds the link cleared simply sets it.
+ *
+ * - null items are not allowed; pollFirst and pollLast use null to say that the deque is empty.
+ *
+ * - Iterators are weakly consistent:
+ *   they never throw ConcurrentModificationException,
+ *   they return the items that were in the deque when the iterator was created,
+ *   and they may or may not see later changes.
+ * - Removing an item from the middle is not supported,
+ *   so remove(Object) and Iterator.remove are optional methods that are not implemented.
+ *
+ */
+
+/**
+ * LockFreeDeque class implements a lock-free doubly-linked deque.
+ */
+public class LockFreeDeque<AnyType> extends AbstractCollection<AnyType> implements Queue<AnyType> {
+
+	private static final int STABLE = 0;
+	private static final int PUSH_FIRST = 1;
+	private static final int PUSH_LAST = 2;
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<DequeNode, DequeNode> PREV =
+			AtomicReferenceFieldUpdater.newUpdater(DequeNode.class, DequeNode.class, "prev");
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<DequeNode, DequeNode> NEXT =
+			AtomicReferenceFieldUpdater.newUpdater(DequeNode.class, DequeNode.class, "next");
+
+	private final AtomicReference<Anchor<AnyType>> anchor =
+			new AtomicReference<Anchor<AnyType>>(new Anchor<AnyType>(null, null, STABLE));
+
+	/**
+	 * Construct an empty LockFreeDeque.
+	 */
+	public LockFreeDeque() {
+	}
+
+	/**
+	 * Construct a LockFreeDeque with same items as another Collection.
+	 */
+	public LockFreeDeque(Collection<? extends AnyType> other) {
+		for (AnyType val : other)
+			add(val);
+	}
+
+	/**
+	 * Returns the number of items in this collection. This walks the deque,
+	 * so it takes linear time, and is only a snapshot if other threads are
+	 * changing the deque.
+	 *
+	 * @return the number of items in this collection.
+	 */
+	public int size() {
+		int count = 0;
+		for (Iterator<AnyType> itr = iterator(); itr.hasNext(); itr.next())
+			count++;
+		return count;
+	}
+
+	/**
+	 * Test if this collection is empty.
+	 *
+	 * @return true if there are no items.
+	 */
+	public boolean isEmpty() {
+		return anchor.get().first == null;
+	}
+
+	/**
+	 * Tests if some item is in this collection.
+	 *
+	 * @param x any object.
+	 * @return true if this collection contains an item equal to x.
+	 */
+	public boolean contains(Object x) {
+		if (x == null)
+			return false;
+		for (Iterator<AnyType> itr = iterator(); itr.hasNext();)
+			if (x.equals(itr.next()))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Removes every item, one pollFirst at a time.
+	 */
+	public void clear() {
+		while (pollFirst() != null)
+			;
+	}
+
+	/**
+	 * Adds an item to this collection, at the end.
+	 *
+	 * @param x any object except null.
+	 * @return true.
+	 * @throws NullPointerException if x is null.
+	 */
+	public boolean add(AnyType x) {
+		addLast(x);
+		return true;
+	}
+
+	/**
+	 * Adds an item at the front.
+	 *
+	 * @param x any object except null.
+	 * @throws NullPointerException if x is null.
+	 */
+	public void addFirst(AnyType x) {
+		DequeNode<AnyType> newNode = new DequeNode<AnyType>(x);
+
+		for (;;) {
+			Anchor<AnyType> a = anchor.get();
+			if (a.first == null) {
+				if (anchor.compareAndSet(a, new Anchor<AnyType>(newNode, newNode, STABLE)))
+					return;
+			} else if (a.status == STABLE) {
+				newNode.next = a.first;
+				Anchor<AnyType> pushed = new Anchor<AnyType>(newNode, a.last, PUSH_FIRST);
+				if (anchor.compareAndSet(a, pushed)) {
+					stabilizeFirst(pushed);
+					return;
+				}
+			} else
+				stabilize(a);
+		}
+	}
+
+	/**
+	 * Adds an item at the end.
+	 *
+	 * @param x any object except null.
+	 * @throws NullPointerException if x is null.
+	 */
+	public void addLast(AnyType x) {
+		DequeNode<AnyType> newNode = new DequeNode<AnyType>(x);
+
+		for (;;) {
+			Anchor<AnyType> a = anchor.get();
+			if (a.last == null) {
+				if (anchor.compareAndSet(a, new Anchor<AnyType>(newNode, newNode, STABLE)))
+					return;
+			} else if (a.status == STABLE) {
+				newNode.prev = a.last;
+				Anchor<AnyType> pushed = new Anchor<AnyType>(a.first, newNode, PUSH_LAST);
+				if (anchor.compareAndSet(a, pushed)) {
+					stabilizeLast(pushed);
+					return;
+				}
+			} else
+				stabilize(a);
+		}
+	}
+
+	/**
+	 * Removes and returns the first item, or returns null if the deque is
+	 * empty.
+	 */
+	public AnyType pollFirst() {
+		for (;;) {
+			Anchor<AnyType> a = anchor.get();
+			if (a.first == null)
+				return null;
+			if (a.first == a.last) {
+				if (anchor.compareAndSet(a, new Anchor<AnyType>(null, null, STABLE)))
+					return a.first.data;
+			} else if (a.status == STABLE) {
+				DequeNode<AnyType> newFirst = a.first.next;
+				if (anchor.compareAndSet(a, new Anchor<AnyType>(newFirst, a.last, STABLE))) {
+					// Let go of the popped node, or the new first node keeps every popped node reachable.
+					PREV.compareAndSet(newFirst, a.first, null);
+					return a.first.data;
+				}
+			} else
+				stabilize(a);
+		}
+	}
+
+	/**
+	 * Removes and returns the last item, or returns null if the deque is
+	 * empty.
+	 */
+	public AnyType pollLast() {
+		for (;;) {
+			Anchor<AnyType> a = anchor.get();
+			if (a.last == null)
+				return null;
+			if (a.first == a.last) {
+				if (anchor.compareAndSet(a, new Anchor<AnyType>(null, null, STABLE)))
+					return a.last.data;
+			} else if (a.status == STABLE) {
+				DequeNode<AnyType> newLast = a.last.prev;
+				if (anchor.compareAndSet(a, new Anchor<AnyType>(a.first, newLast, STABLE))) {
+					NEXT.compareAndSet(newLast, a.last, null);
+					return a.last.data;
+				}
+			} else
+				stabilize(a);
+		}
+	}
+
+	/**
+	 * Returns the first item, or null if the deque is empty.
+	 */
+	public AnyType peekFirst() {
+		DequeNode<AnyType> first = anchor.get().first;
+		return first == null ? null : first.data;
+	}
+
+	/**
+	 * Returns the last item, or null if the deque is empty.
+	 */
+	public AnyType peekLast() {
+		DequeNode<AnyType> last = anchor.get().last;
+		return last == null ? null : last.data;
+	}
+
+	/**
+	 * Returns the front item in the queue.
+	 *
+	 * @throws NoSuchElementException if the deque is empty.
+	 */
+	public AnyType element() {
+		return getFirst();
+	}
+
+	/**
+	 * Returns the first item.
+	 *
+	 * @throws NoSuchElementException if the deque is empty.
+	 */
+	public AnyType getFirst() {
+		AnyType x = peekFirst();
+		if (x == null)
+			throw new NoSuchElementException();
+		return x;
+	}
+
+	/**
+	 * Returns the last item.
+	 *
+	 * @throws NoSuchElementException if the deque is empty.
+	 */
+	public AnyType getLast() {
+		AnyType x = peekLast();
+		if (x == null)
+			throw new NoSuchElementException();
+		return x;
+	}
+
+	/**
+	 * Removes the front item in the queue.
+	 *
+	 * @return the front item.
+	 * @throws NoSuchElementException if the deque is empty.
+	 */
+	public AnyType remove() {
+		return removeFirst();
+	}
+
+	/**
+	 * Removes the first item.
+	 *
+	 * @return the item was removed from the collection.
+	 * @throws NoSuchElementException if the deque is empty.
+	 */
+	public AnyType removeFirst() {
+		AnyType x = pollFirst();
+		if (x == null)
+			throw new NoSuchElementException();
+		return x;
+	}
+
+	/**
+	 * Removes the last item.
+	 *
+	 * @return the item was removed from the collection.
+	 * @throws NoSuchElementException if the deque is empty.
+	 */
+	public AnyType removeLast() {
+		AnyType x = pollLast();
+		if (x == null)
+			throw new NoSuchElementException();
+		return x;
+	}
+
+	/**
+	 * Removing an item from the middle is not supported.
+	 *
+	 * @throws UnsupportedOperationException always.
+	 */
+	public boolean remove(Object x) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Obtains a primitive array view of the collection, as seen by one
+	 * iteration.
+	 *
+	 * @return the primitive array view.
+	 */
+	public Object[] toArray() {
+		return snapshot().toArray();
+	}
+
+	/**
+	 * Obtains a primitive array view of the collection, as seen by one
+	 * iteration.
+	 *
+	 * @param arr the array to fill, if it is large enough.
+	 * @return the primitive array view.
+	 */
+	public <OtherType> OtherType[] toArray(OtherType[] arr) {
+		return snapshot().toArray(arr);
+	}
+
+	private java.util.ArrayList<AnyType> snapshot() {
+		java.util.ArrayList<AnyType> items = new java.util.ArrayList<AnyType>();
+		for (Iterator<AnyType> itr = iterator(); itr.hasNext();)
+			items.add(itr.next());
+		return items;
+	}
+
+	/**
+	 * Finishes the push recorded in anchor a, if a is still current.
+	 */
+	private void stabilize(Anchor<AnyType> a) {
+		if (a.status == PUSH_LAST)
+			stabilizeLast(a);
+		else
+			stabilizeFirst(a);
+	}
+
+	/**
+	 * Step 2 of addFirst: points the prev link of the old first node at the
+	 * new first node, then marks the anchor stable.
+	 */
+	private void stabilizeFirst(Anchor<AnyType> a) {
+		DequeNode<AnyType> next = a.first.next;
+		if (anchor.get() != a)
+			return;
+
+		DequeNode<AnyType> nextPrev = next.prev;
+		if (nextPrev != a.first) {
+			if (anchor.get() != a)
+				return;
+			if (!PREV.compareAndSet(next, nextPrev, a.first))
+				return;
+		}
+		anchor.compareAndSet(a, new Anchor<AnyType>(a.first, a.last, STABLE));
+	}
+
+	/**
+	 * Step 2 of addLast: points the next link of the old last node at the new
+	 * last node, then marks the anchor stable.
+	 */
+	private void stabilizeLast(Anchor<AnyType> a) {
+		DequeNode<AnyType> prev = a.last.prev;
+		if (anchor.get() != a)
+			return;
+
+		DequeNode<AnyType> prevNext = prev.next;
+		if (prevNext != a.last) {
+			if (anchor.get() != a)
+				return;
+			if (!NEXT.compareAndSet(prev, prevNext, a.last))
+				return;
+		}
+		anchor.compareAndSet(a, new Anchor<AnyType>(a.first, a.last, STABLE));
+	}
+
+	/**
+	 * Obtains a weakly consistent Iterator over the deque, from first to last.
+	 * Its remove is not supported.
+	 *
+	 * @return an iterator positioned prior to the first element.
+	 */
+	public Iterator<AnyType> iterator() {
+		return new LockFreeDequeIterator();
+	}
+
+	/**
+	 * Obtains a Spliterator over the weakly consistent iterator. It does not
+	 * claim to know its size: size() walks the deque, and the walk of the
+	 * iterator may see a different number of items.
+	 *
+	 * @return an ORDERED, NONNULL and CONCURRENT spliterator.
+	 */
+	public Spliterator<AnyType> spliterator() {
+		return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.CONCURRENT);
+	}
+
+	/**
+	 * The deque node. Its links are only changed by CAS.
+	 */
+	private static final class DequeNode<AnyType> {
+		final AnyType data;
+		volatile DequeNode<AnyType> prev;
+		volatile DequeNode<AnyType> next;
+
+		DequeNode(AnyType d) {
+			if (d == null)
+				throw new NullPointerException();
+			data = d;
+		}
+	}
+
+	/**
+	 * The ends of the deque and the push in progress, replaced as a whole.
+	 */
+	private static final class Anchor<AnyType> {
+		final DequeNode<AnyType> first;
+		final DequeNode<AnyType> last;
+		final int status;
+
+		Anchor(DequeNode<AnyType> f, DequeNode<AnyType> l, int s) {
+			first = f;
+			last = l;
+			status = s;
+		}
+	}
+
+	/**
+	 * This is the implementation of the LockFreeDequeIterator. It starts from
+	 * a stable anchor and follows next links up to that anchor's last node,
+	 * or until a link cleared by pollLast ends the walk early.
+	 */
+	private class LockFreeDequeIterator implements Iterator<AnyType> {
+		private DequeNode<AnyType> current;
+		private final DequeNode<AnyType> last;
+
+		public LockFreeDequeIterator() {
+			Anchor<AnyType> a = anchor.get();
+			while (a.status != STABLE) {
+				stabilize(a);
+				a = anchor.get();
+			}
+			current = a.first;
+			last = a.last;
+		}
+
+		public boolean hasNext() {
+			return current != null;
+		}
+
+		public AnyType next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+
+			AnyType nextItem = current.data;
+			current = current == last ? null : current.next;
+			return nextItem;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+}
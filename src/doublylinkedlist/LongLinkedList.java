@@ -0,0 +1,490 @@
+package doublylinkedlist;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * = primitive specialized linked lists =
+ *
+ * - A LinkedList<Long> stores a reference to a boxed Long in every Node,
+ *   so every item costs 2 objects, and reading it costs 2 pointer chases.
+ * - Generics in Java work only with reference types, so the only way to avoid the boxing
+ *   is to write the list again for the primitive type.
+ *
+ * - LongLinkedList is LinkedList with the data field of the node declared as long.
+ * - The algorithms are exactly the same: beginMarker and endMarker, getNode walking from
+ *   the closest end (or the finger), and a fail-fast iterator.
+ * - Since remove(int idx) already removes by position, removing by value is called removeValue.
+ *
+ * - The iterator returns long values through nextLong and previousLong,
+ *   so a loop over the list allocates nothing.
+ *
+ */
+
+/**
+ * LongLinkedList class implements a doubly-linked list of long values.
+ */
+public class LongLinkedList implements java.io.Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	// Nothing is serialized by default; writeObject writes the size and the
+	// values, and readObject rebuilds the nodes.
+	private transient int theSize;
+	private transient LongNode beginMarker;
+	private transient LongNode endMarker;
+	private transient int modCount = 0;
+
+	// The finger remembers the last node reached by getNode and its index.
+	// It is only trusted while fingerModCount matches modCount.
+	private transient LongNode finger;
+	private transient int fingerIdx;
+	private transient int fingerModCount = -1;
+
+	/**
+	 * Construct an empty LongLinkedList.
+	 */
+	public LongLinkedList() {
+		clear();
+	}
+
+	/**
+	 * Change the size of this collection to zero.
+	 */
+	public void clear() {
+		beginMarker = new LongNode(0, null, null);
+		endMarker = new LongNode(0, beginMarker, null);
+		beginMarker.next = endMarker;
+
+		theSize = 0;
+		modCount++;
+	}
+
+	/**
+	 * Returns the number of items in this collection.
+	 *
+	 * @return the number of items in this collection.
+	 */
+	public int size() {
+		return theSize;
+	}
+
+	/**
+	 * Test if this collection is empty.
+	 *
+	 * @return true if the size of this collection is zero.
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Tests if some item is in this collection.
+	 *
+	 * @param x any long.
+	 * @return true if this collection contains x.
+	 */
+	public boolean contains(long x) {
+		return findPos(x) != null;
+	}
+
+	/**
+	 * Returns the node of the first item equal to x in this collection, or null
+	 * if not found.
+	 */
+	private LongNode findPos(long x) {
+		for (LongNode p = beginMarker.next; p != endMarker; p = p.next)
+			if (p.data == x)
+				return p;
+
+		return null;
+	}
+
+	/**
+	 * Adds an item to this collection, at the end.
+	 *
+	 * @param x any long.
+	 * @return true.
+	 */
+	public boolean add(long x) {
+		addLast(x);
+		return true;
+	}
+
+	/**
+	 * Adds an item to this collection, at specified position. Items at or after
+	 * that position are slid one position higher.
+	 *
+	 * @param idx position to add at.
+	 * @param x   any long.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(),
+	 *                                   inclusive.
+	 */
+	public void add(int idx, long x) {
+		LongNode p = getNode(idx, 0, size());
+		LongNode newNode = new LongNode(x, p.prev, p);
+		newNode.prev.next = newNode;
+		p.prev = newNode;
+		theSize++;
+		modCount++;
+		setFinger(newNode, idx);
+	}
+
+	/**
+	 * Adds an item to this collection, at front. Other items are slid one position
+	 * higher.
+	 *
+	 * @param x any long.
+	 */
+	public void addFirst(long x) {
+		add(0, x);
+	}
+
+	/**
+	 * Adds an item to this collection, at end.
+	 *
+	 * @param x any long.
+	 */
+	public void addLast(long x) {
+		add(size(), x);
+	}
+
+	/**
+	 * Writes the size and then the values, instead of the graph of nodes,
+	 * which are not serializable.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(theSize);
+		for (LongNode p = beginMarker.next; p != endMarker; p = p.next)
+			out.writeLong(p.data);
+	}
+
+	/**
+	 * Reads what writeObject wrote, adding each value at the end.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		int size = in.readInt();
+		if (size < 0)
+			throw new StreamCorruptedException("negative size: " + size);
+
+		fingerModCount = -1;
+		clear();
+		for (int i = 0; i < size; i++)
+			addLast(in.readLong());
+	}
+
+	/**
+	 * Returns the front item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public long element() {
+		return getFirst();
+	}
+
+	/**
+	 * Returns the first item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public long getFirst() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return beginMarker.next.data;
+	}
+
+	/**
+	 * Returns the last item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public long getLast() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return endMarker.prev.data;
+	}
+
+	/**
+	 * Returns the item at position idx.
+	 *
+	 * @param idx the index to search in.
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 */
+	public long get(int idx) {
+		return getNode(idx).data;
+	}
+
+	/**
+	 * Changes the item at position idx.
+	 *
+	 * @param idx    the index to change.
+	 * @param newVal the new value.
+	 * @return the old value.
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 */
+	public long set(int idx, long newVal) {
+		LongNode p = getNode(idx);
+		long oldVal = p.data;
+
+		p.data = newVal;
+		return oldVal;
+	}
+
+	/**
+	 * Removes the front item in the queue.
+	 *
+	 * @return the front item.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public long remove() {
+		return removeFirst();
+	}
+
+	/**
+	 * Removes the first item in the list.
+	 *
+	 * @return the item was removed from the collection.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public long removeFirst() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return remove(beginMarker.next);
+	}
+
+	/**
+	 * Removes the last item in the list.
+	 *
+	 * @return the item was removed from the collection.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public long removeLast() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return remove(endMarker.prev);
+	}
+
+	/**
+	 * Removes the first occurrence of x from this collection.
+	 *
+	 * @param x any long.
+	 * @return true if this item was removed from the collection.
+	 */
+	public boolean removeValue(long x) {
+		LongNode pos = findPos(x);
+
+		if (pos == null)
+			return false;
+		else {
+			remove(pos);
+			return true;
+		}
+	}
+
+	/**
+	 * Removes an item from this collection.
+	 *
+	 * @param idx the index of the object.
+	 * @return the item was removed from the collection.
+	 */
+	public long remove(int idx) {
+		LongNode p = getNode(idx);
+		LongNode successor = p.next;
+		long removed = remove(p);
+
+		setFinger(successor, idx);
+		return removed;
+	}
+
+	/**
+	 * Obtains a primitive array holding the items of this collection, in order.
+	 *
+	 * @return the array.
+	 */
+	public long[] toArray() {
+		long[] copy = new long[size()];
+
+		int i = 0;
+		for (LongNode p = beginMarker.next; p != endMarker; p = p.next)
+			copy[i++] = p.data;
+		return copy;
+	}
+
+	/**
+	 * Gets the Node at position idx, which must range from 0 to size( )-1.
+	 */
+	private LongNode getNode(int idx) {
+		return getNode(idx, 0, size() - 1);
+	}
+
+	/**
+	 * Gets the Node at position idx, which must range from lower to upper,
+	 * starting from the first node, the endMarker or the finger, whichever is
+	 * nearest.
+	 *
+	 * @param idx   index to search at.
+	 * @param lower lowest valid index.
+	 * @param upper highest valid index.
+	 * @return internal node corrsponding to idx.
+	 * @throws IndexOutOfBoundsException if idx is not between lower and upper,
+	 *                                   inclusive.
+	 */
+	private LongNode getNode(int idx, int lower, int upper) {
+		LongNode p;
+		int pos;
+
+		if (idx < lower || idx > upper)
+			throw new IndexOutOfBoundsException("getNode index: " + idx + "; size: " + size());
+
+		if (idx < size() / 2) {
+			p = beginMarker.next;
+			pos = 0;
+		} else {
+			p = endMarker;
+			pos = size();
+		}
+
+		if (fingerModCount == modCount && Math.abs(idx - fingerIdx) < Math.abs(idx - pos)) {
+			p = finger;
+			pos = fingerIdx;
+		}
+
+		for (; pos < idx; pos++)
+			p = p.next;
+		for (; pos > idx; pos--)
+			p = p.prev;
+
+		setFinger(p, idx);
+		return p;
+	}
+
+	/**
+	 * Remembers p as the node at position idx for the next getNode call.
+	 */
+	private void setFinger(LongNode p, int idx) {
+		finger = p;
+		fingerIdx = idx;
+		fingerModCount = modCount;
+	}
+
+	/**
+	 * Removes the item contained in node p.
+	 *
+	 * @param p the node containing the item.
+	 * @return the item was removed from the collection.
+	 */
+	private long remove(LongNode p) {
+		p.next.prev = p.prev;
+		p.prev.next = p.next;
+		theSize--;
+		modCount++;
+
+		return p.data;
+	}
+
+	/**
+	 * Obtains an iterator used to traverse the collection.
+	 *
+	 * @return an iterator positioned prior to the first element.
+	 */
+	public LongListIterator iterator() {
+		return new LongLinkedListIterator(0);
+	}
+
+	/**
+	 * Obtains an iterator used to traverse the collection bidirectionally.
+	 *
+	 * @return an iterator positioned prior to the requested element.
+	 * @param idx the index to start the iterator. Use size() to do complete reverse
+	 *            traversal. Use 0 to do complete forward traversal.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(), inclusive.
+	 */
+	public LongListIterator listIteraor(int idx) {
+		return new LongLinkedListIterator(idx);
+	}
+
+	/**
+	 * This is the doubly-linked list node, holding a long.
+	 */
+	private static class LongNode {
+		long data;
+		LongNode prev;
+		LongNode next;
+
+		LongNode(long d, LongNode p, LongNode n) {
+			data = d;
+			prev = p;
+			next = n;
+		}
+	}
+
+	/**
+	 * This is the implementation of the LongLinkedListIterator. It is the
+	 * LinkedListIterator of LinkedList, returning long values.
+	 */
+	private class LongLinkedListIterator implements LongListIterator {
+		private LongNode current;
+		private LongNode lastVisited = null;
+		private boolean lastMoveWasPrev = false;
+		private int expectedModCount = modCount;
+
+		public LongLinkedListIterator(int idx) {
+			current = getNode(idx, 0, size());
+		}
+
+		public boolean hasNext() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			return current != endMarker;
+		}
+
+		public long nextLong() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+
+			long nextItem = current.data;
+			lastVisited = current;
+			current = current.next;
+			lastMoveWasPrev = false;
+			return nextItem;
+		}
+
+		public void remove() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			if (lastVisited == null)
+				throw new IllegalStateException();
+
+			LongLinkedList.this.remove(lastVisited);
+			lastVisited = null;
+			if (lastMoveWasPrev)
+				current = current.next;
+			expectedModCount++;
+		}
+
+		public boolean hasPrevious() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			return current != beginMarker.next;
+		}
+
+		public long previousLong() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			if (!hasPrevious())
+				throw new NoSuchElementException();
+
+			current = current.prev;
+			lastVisited = current;
+			lastMoveWasPrev = true;
+			return current.data;
+		}
+	}
+
+}
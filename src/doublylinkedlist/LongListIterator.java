@@ -0,0 +1,39 @@
+package doublylinkedlist;
+
+/**
+ * 
+ * LongListIterator interface for LongLinkedList.
+ * It is the ListIterator interface, returning long values without boxing.
+ *
+ */
+public interface LongListIterator extends java.util.PrimitiveIterator.OfLong {
+
+	/**
+	 * Tests if there are items not yet iterated over.
+	 */
+	boolean hasNext();
+
+	/**
+	 * Obtains the next (as yet unseen) item in the collection.
+	 */
+	long nextLong();
+
+	/**
+	 * Test if there are more items in the collection when iterating in reverse.
+	 * @return true if there are more items in the collection when traversing in reverse.
+	 */
+	boolean hasPrevious();
+
+	/**
+	 * Obtains the previous item in the collection.
+	 * @return the previous (as yet unseen) item in the collection when traversing in reverse.
+	 */
+	long previousLong();
+
+	/**
+	 * Remove the last item returned by nextLong or previousLong.
+	 * Can only be called once after nextLong or previousLong.
+	 */
+	void remove();
+
+}
@@ -0,0 +1,647 @@
+package doublylinkedlist;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * = memory-mapped linked lists =
+ *
+ * - OffHeapLinkedList moves the nodes out of the Java heap, but they still
+ *   have to fit in memory, and they are gone when the program ends.
+ *
+ * - MappedLinkedList keeps the same records in a file, mapped into memory with FileChannel.map.
+ * - Reading and writing a record is reading and writing memory;
+ *   the operating system pages parts of the file in and out as they are used,
+ *   so the list can be much larger than the memory of the machine.
+ *
+ *     file:  | header (HEADER bytes) | record 0 | record 1 | record 2 | ...
+ *
+ *     header:  | magic | record size | theSize | next unused record | head of free chain |
+ *     record:  | prev (4 bytes) | next (4 bytes) | item (codec.size() bytes) |
+ *
+ * - A link is the number of a record; record h starts HEADER + h * recordSize bytes into the file.
+ * - Records 0 and 1 are the beginMarker and the endMarker, right behind the header,
+ *   so the head and the tail of the list are found at fixed offsets:
+ *   the next link of record 0 and the prev link of record 1.
+ *
+ * - One mapping can not be larger than 2GB, so the records are mapped in segments
+ *   of SEGMENT_RECORDS records each.
+ * - To grow, the list maps the next segment past the end of the file,
+ *   which makes the file longer.
+ *
+ * - A removed record is pushed on a free chain, threaded through its next field,
+ *   and is reused by the next add, as in OffHeapLinkedList.
+ * - The header is kept up to date after every change,
+ *   so opening the file again gives back the same list.
+ *
+ * - Changes reach the disk when the operating system writes the pages back.
+ * - force() writes them back now, and returns when they are on the disk.
+ * - A crash between 2 calls of force() can leave the file with only some of the changes,
+ *   and then it may no longer be a valid list.
+ *
+ */
+
+/**
+ * MappedLinkedList class implements a doubly-linked list whose nodes are
+ * stored in a memory-mapped file.
+ */
+public class MappedLinkedList<AnyType> extends AbstractCollection<AnyType> implements List<AnyType>, Queue<AnyType>, Closeable {
+
+	private static final int SEGMENT_SHIFT = 16;
+	private static final int SEGMENT_RECORDS = 1 << SEGMENT_SHIFT;
+	private static final int SEGMENT_MASK = SEGMENT_RECORDS - 1;
+
+	private static final int MAGIC = 0x4d4c4c31; // "MLL1"
+	private static final int HEADER = 32;
+	private static final int H_MAGIC = 0;
+	private static final int H_RECORD_SIZE = 4;
+	private static final int H_SIZE = 8;
+	private static final int H_NEXT_UNUSED = 12;
+	private static final int H_FREE_LIST = 16;
+
+	private static final int PREV = 0;
+	private static final int NEXT = 4;
+	private static final int DATA = 8;
+
+	private static final int NIL = -1;
+	private static final int beginMarker = 0;
+	private static final int endMarker = 1;
+
+	private static final long serialVersionUID = 1L;
+
+	private final ElementCodec<AnyType> codec;
+	private final int recordSize;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer header;
+	private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+	private int nextUnused;
+	private int freeList;
+
+	private int theSize;
+	private int modCount = 0;
+
+	/**
+	 * Open the MappedLinkedList stored in file, or create an empty one if the
+	 * file is empty or does not exist.
+	 *
+	 * @param file  the file that holds the list.
+	 * @param codec converts items to and from their fixed-size records; it must
+	 *              be the same as when the file was written.
+	 * @throws IllegalArgumentException if a segment of such records would not
+	 *                                  fit in one mapping.
+	 * @throws IOException              if the file can not be opened or mapped,
+	 *                                  or is not a list of records of this size.
+	 */
+	public MappedLinkedList(Path file, ElementCodec<AnyType> codec) throws IOException {
+		if (codec.size() < 0 || (long) (DATA + codec.size()) * SEGMENT_RECORDS > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("record size: " + codec.size());
+
+		this.codec = codec;
+		recordSize = DATA + codec.size();
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try {
+			boolean fresh = channel.size() == 0;
+			header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+			if (fresh) {
+				header.putInt(H_MAGIC, MAGIC);
+				header.putInt(H_RECORD_SIZE, recordSize);
+				clear();
+				return;
+			}
+
+			if (header.getInt(H_MAGIC) != MAGIC)
+				throw new IOException(file + " does not hold a MappedLinkedList");
+			if (header.getInt(H_RECORD_SIZE) != recordSize)
+				throw new IOException(file + " holds records of " + header.getInt(H_RECORD_SIZE) + " bytes, not " + recordSize);
+
+			theSize = header.getInt(H_SIZE);
+			nextUnused = header.getInt(H_NEXT_UNUSED);
+			freeList = header.getInt(H_FREE_LIST);
+			while ((long) segments.length << SEGMENT_SHIFT < nextUnused)
+				mapSegment();
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Open the MappedLinkedList stored in file, as the other constructor does,
+	 * and add all items of another Collection at its end.
+	 */
+	public MappedLinkedList(Path file, ElementCodec<AnyType> codec, Collection<? extends AnyType> other) throws IOException {
+		this(file, codec);
+		for (AnyType val : other)
+			add(val);
+	}
+
+	/**
+	 * Change the size of this collection to zero. The file keeps its length,
+	 * and its records are reused.
+	 */
+	public void clear() {
+		nextUnused = 0;
+		freeList = NIL;
+		allocate();
+		allocate();
+		setNext(beginMarker, endMarker);
+		setPrev(endMarker, beginMarker);
+
+		theSize = 0;
+		modCount++;
+		saveHeader();
+	}
+
+	/**
+	 * Writes every change made so far to the storage device, and returns when
+	 * they are there.
+	 */
+	public void force() {
+		for (MappedByteBuffer segment : segments)
+			segment.force();
+		header.force();
+	}
+
+	/**
+	 * Forces the changes to the file and closes it. The list must not be used
+	 * afterwards.
+	 *
+	 * @throws IOException if the file can not be closed.
+	 */
+	public void close() throws IOException {
+		force();
+		channel.close();
+	}
+
+	/**
+	 * A MappedLinkedList can not be serialized, since its items live in a file.
+	 * Copy them into a LinkedList to serialize them.
+	 *
+	 * @throws NotSerializableException always.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		throw new NotSerializableException(getClass().getName() + " is backed by a file and can not be serialized");
+	}
+
+	/**
+	 * Returns the number of items in this collection.
+	 *
+	 * @return the number of items in this collection.
+	 */
+	public int size() {
+		return theSize;
+	}
+
+	/**
+	 * Tests if some item is in this collection.
+	 *
+	 * @param x any object.
+	 * @return true if this collection contains an item equal to x.
+	 */
+	public boolean contains(Object x) {
+		return findPos(x) != NIL;
+	}
+
+	/**
+	 * Returns the record of the first item matching x in this collection, or
+	 * NIL if not found.
+	 */
+	private int findPos(Object x) {
+		for (int p = next(beginMarker); p != endMarker; p = next(p))
+			if (x == null) {
+				if (data(p) == null)
+					return p;
+			} else if (x.equals(data(p)))
+				return p;
+
+		return NIL;
+	}
+
+	/**
+	 * Adds an item to this collection, at the end.
+	 *
+	 * @param x any object.
+	 * @return true.
+	 */
+	public boolean add(AnyType x) {
+		addLast(x);
+		return true;
+	}
+
+	/**
+	 * Adds an item to this collection, at specified position. Items at or after
+	 * that position are slid one position higher.
+	 *
+	 * @param x   any object.
+	 * @param idx position to add at.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(),
+	 *                                   inclusive.
+	 */
+	public void add(int idx, AnyType x) {
+		int p = getNode(idx, 0, size());
+		int prev = prev(p);
+		int newNode = allocate();
+
+		try {
+			codec.write(segment(newNode), offset(newNode) + DATA, x);
+		} catch (RuntimeException e) {
+			// The codec refused x; give the record back instead of losing it.
+			setNext(newNode, freeList);
+			freeList = newNode;
+			saveHeader();
+			throw e;
+		}
+		setPrev(newNode, prev);
+		setNext(newNode, p);
+		setNext(prev, newNode);
+		setPrev(p, newNode);
+		theSize++;
+		modCount++;
+		saveHeader();
+	}
+
+	/**
+	 * Adds all items of another collection, in order, at position idx. The
+	 * items are copied out first, so items may be this list.
+	 *
+	 * @param idx   position to add at.
+	 * @param items the items to add.
+	 * @return true if this list changed.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(),
+	 *                                   inclusive.
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean addAll(int idx, Collection<? extends AnyType> items) {
+		if (idx < 0 || idx > size())
+			throw new IndexOutOfBoundsException("addAll index: " + idx + "; size: " + size());
+
+		Object[] arr = items.toArray(new Object[items.size()]);
+		for (int i = 0; i < arr.length; i++)
+			add(idx + i, (AnyType) arr[i]);
+		return arr.length != 0;
+	}
+
+	/**
+	 * Adds an item to this collection, at front. Other items are slid one position
+	 * higher.
+	 *
+	 * @param x any object.
+	 */
+	public void addFirst(AnyType x) {
+		add(0, x);
+	}
+
+	/**
+	 * Adds an item to this collection, at end.
+	 *
+	 * @param x any object.
+	 */
+	public void addLast(AnyType x) {
+		add(size(), x);
+	}
+
+	/**
+	 * Returns the front item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType element() {
+		return getFirst();
+	}
+
+	/**
+	 * Returns the first item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType getFirst() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return data(next(beginMarker));
+	}
+
+	/**
+	 * Returns the last item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType getLast() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return data(prev(endMarker));
+	}
+
+	/**
+	 * Returns the item at position idx.
+	 *
+	 * @param idx the index to search in.
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 */
+	public AnyType get(int idx) {
+		return data(getNode(idx));
+	}
+
+	/**
+	 * Changes the item at position idx.
+	 *
+	 * @param idx    the index to change.
+	 * @param newVal the new value.
+	 * @return the old value.
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 */
+	public AnyType set(int idx, AnyType newVal) {
+		int p = getNode(idx);
+		AnyType oldVal = data(p);
+
+		codec.write(segment(p), offset(p) + DATA, newVal);
+		return oldVal;
+	}
+
+	/**
+	 * Removes the front item in the queue.
+	 *
+	 * @return the front item.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType remove() {
+		return removeFirst();
+	}
+
+	/**
+	 * Removes the first item in the list.
+	 *
+	 * @return the item was removed from the collection.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType removeFirst() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return removeNode(next(beginMarker));
+	}
+
+	/**
+	 * Removes the last item in the list.
+	 *
+	 * @return the item was removed from the collection.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType removeLast() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return removeNode(prev(endMarker));
+	}
+
+	/**
+	 * Removes an item from this collection.
+	 *
+	 * @param x any object.
+	 * @return true if this item was removed from the collection.
+	 */
+	public boolean remove(Object x) {
+		int pos = findPos(x);
+
+		if (pos == NIL)
+			return false;
+		else {
+			removeNode(pos);
+			return true;
+		}
+	}
+
+	/**
+	 * Removes an item from this collection.
+	 *
+	 * @param idx the index of the object.
+	 * @return the item was removed from the collection.
+	 */
+	public AnyType remove(int idx) {
+		return removeNode(getNode(idx));
+	}
+
+	/**
+	 * Gets the record at position idx, which must range from 0 to size( )-1.
+	 */
+	private int getNode(int idx) {
+		return getNode(idx, 0, size() - 1);
+	}
+
+	/**
+	 * Gets the record at position idx, which must range from lower to upper.
+	 *
+	 * @param idx   index to search at.
+	 * @param lower lowest valid index.
+	 * @param upper highest valid index.
+	 * @return number of the record corrsponding to idx.
+	 * @throws IndexOutOfBoundsException if idx is not between lower and upper,
+	 *                                   inclusive.
+	 */
+	private int getNode(int idx, int lower, int upper) {
+		int p;
+
+		if (idx < lower || idx > upper)
+			throw new IndexOutOfBoundsException("getNode index: " + idx + "; size: " + size());
+
+		if (idx < size() / 2) {
+			p = next(beginMarker);
+			for (int i = 0; i < idx; i++)
+				p = next(p);
+		} else {
+			p = endMarker;
+			for (int i = size(); i > idx; i--)
+				p = prev(p);
+		}
+
+		return p;
+	}
+
+	/**
+	 * Unlinks record p, puts it on the free chain, and returns its item.
+	 */
+	private AnyType removeNode(int p) {
+		AnyType removed = data(p);
+
+		setPrev(next(p), prev(p));
+		setNext(prev(p), next(p));
+		setNext(p, freeList);
+		freeList = p;
+		theSize--;
+		modCount++;
+		saveHeader();
+
+		return removed;
+	}
+
+	/**
+	 * Returns the number of an unused record: the head of the free chain if
+	 * there is one, otherwise the next never used record, mapping another
+	 * segment when the last one is full.
+	 */
+	private int allocate() {
+		if (freeList != NIL) {
+			int p = freeList;
+			freeList = next(p);
+			return p;
+		}
+
+		if (nextUnused == Integer.MAX_VALUE)
+			throw new IllegalStateException("MappedLinkedList is full");
+		if ((nextUnused >>> SEGMENT_SHIFT) == segments.length)
+			mapSegment();
+		return nextUnused++;
+	}
+
+	/**
+	 * Maps the segment after the last mapped one, growing the file to hold it.
+	 *
+	 * @throws UncheckedIOException if the file can not be mapped.
+	 */
+	private void mapSegment() {
+		long segmentBytes = (long) SEGMENT_RECORDS * recordSize;
+		MappedByteBuffer[] old = segments;
+		segments = new MappedByteBuffer[old.length + 1];
+		System.arraycopy(old, 0, segments, 0, old.length);
+
+		try {
+			segments[old.length] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER + old.length * segmentBytes, segmentBytes);
+		} catch (IOException e) {
+			segments = old;
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes the size and the allocation state into the header.
+	 */
+	private void saveHeader() {
+		header.putInt(H_SIZE, theSize);
+		header.putInt(H_NEXT_UNUSED, nextUnused);
+		header.putInt(H_FREE_LIST, freeList);
+	}
+
+	private ByteBuffer segment(int p) {
+		return segments[p >>> SEGMENT_SHIFT];
+	}
+
+	private int offset(int p) {
+		return (p & SEGMENT_MASK) * recordSize;
+	}
+
+	private int prev(int p) {
+		return segment(p).getInt(offset(p) + PREV);
+	}
+
+	private int next(int p) {
+		return segment(p).getInt(offset(p) + NEXT);
+	}
+
+	private void setPrev(int p, int prev) {
+		segment(p).putInt(offset(p) + PREV, prev);
+	}
+
+	private void setNext(int p, int next) {
+		segment(p).putInt(offset(p) + NEXT, next);
+	}
+
+	private AnyType data(int p) {
+		return codec.read(segment(p), offset(p) + DATA);
+	}
+
+	/**
+	 * Obtains an Iterator object used to traverse the collection.
+	 *
+	 * @return an iterator positioned prior to the first element.
+	 */
+	public Iterator<AnyType> iterator() {
+		return new MappedListIterator(0);
+	}
+
+	/**
+	 * Obtains a ListIterator object used to traverse the collection
+	 * bidirectionally.
+	 *
+	 * @return an iterator positioned prior to the requested element.
+	 * @param idx the index to start the iterator. Use size() to do complete reverse
+	 *            traversal. Use 0 to do complete forward traversal.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(), inclusive.
+	 */
+	public ListIterator<AnyType> listIteraor(int idx) {
+		return new MappedListIterator(idx);
+	}
+
+	/**
+	 * This is the implementation of the MappedListIterator. It is the
+	 * LinkedListIterator of LinkedList, holding record numbers instead of
+	 * nodes.
+	 */
+	private class MappedListIterator implements ListIterator<AnyType> {
+		private int current;
+		private int lastVisited = NIL;
+		private boolean lastMoveWasPrev = false;
+		private int expectedModCount = modCount;
+
+		public MappedListIterator(int idx) {
+			current = getNode(idx, 0, size());
+		}
+
+		public boolean hasNext() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			return current != endMarker;
+		}
+
+		public AnyType next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+
+			AnyType nextItem = data(current);
+			lastVisited = current;
+			current = MappedLinkedList.this.next(current);
+			lastMoveWasPrev = false;
+			return nextItem;
+		}
+
+		public void remove() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			if (lastVisited == NIL)
+				throw new IllegalStateException();
+
+			if (lastMoveWasPrev)
+				current = MappedLinkedList.this.next(current);
+			removeNode(lastVisited);
+			lastVisited = NIL;
+			expectedModCount++;
+		}
+
+		public boolean hasPrevious() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			return current != MappedLinkedList.this.next(beginMarker);
+		}
+
+		public AnyType previous() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			if (!hasPrevious())
+				throw new NoSuchElementException();
+
+			current = prev(current);
+			lastVisited = current;
+			lastMoveWasPrev = true;
+			return data(current);
+		}
+	}
+
+}
@@ -0,0 +1,586 @@
+package doublylinkedlist;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * = off-heap linked lists =
+ *
+ * - Every Node of a LinkedList is an object on the Java heap.
+ * - With tens of millions of items the garbage collector has to trace tens of millions of nodes,
+ *   and the pauses grow with the list.
+ *
+ * - OffHeapLinkedList keeps the whole doubly linked list in direct ByteBuffers,
+ *   which live outside the heap.
+ * - A node is a fixed-size record, and a link is not a reference but an int handle:
+ *   the number of the record.
+ *
+ *     record:  | prev (4 bytes) | next (4 bytes) | item (codec.size() bytes) |
+ *
+ * - Records are allocated from slabs of SLAB_RECORDS records each.
+ *   Handle h lives in slab h / SLAB_RECORDS, at record h % SLAB_RECORDS.
+ * - Records 0 and 1 are the beginMarker and the endMarker,
+ *   so the algorithms are exactly those of LinkedList with p.next replaced by next(p).
+ *
+ * - A removed record is pushed on a free chain, threaded through its next field,
+ *   and is reused by the next add.
+ * - So the heap holds only the array of slabs, no matter how long the list is.
+ *
+ * - The items are converted with an ElementCodec;
+ *   get returns a freshly decoded copy of the item.
+ *
+ * - Serialization writes the size and the encoded bytes of each item, not the slabs,
+ *   and reading them back fills new slabs.
+ *
+ */
+
+/**
+ * OffHeapLinkedList class implements a doubly-linked list whose nodes are
+ * stored in direct memory.
+ */
+public class OffHeapLinkedList<AnyType> extends AbstractCollection<AnyType> implements List<AnyType>, Queue<AnyType> {
+
+	private static final int SLAB_SHIFT = 16;
+	private static final int SLAB_RECORDS = 1 << SLAB_SHIFT;
+	private static final int SLAB_MASK = SLAB_RECORDS - 1;
+
+	private static final int PREV = 0;
+	private static final int NEXT = 4;
+	private static final int DATA = 8;
+
+	private static final int NIL = -1;
+	private static final int beginMarker = 0;
+	private static final int endMarker = 1;
+
+	private static final long serialVersionUID = 1L;
+
+	// Only the codec and recordSize are serialized by default; writeObject
+	// writes the size and the encoded items, and readObject rebuilds the slabs.
+	private final ElementCodec<AnyType> codec;
+	private final int recordSize;
+
+	private transient ByteBuffer[] slabs = new ByteBuffer[0];
+	private transient int nextUnused;
+	private transient int freeList;
+
+	private transient int theSize;
+	private transient int modCount = 0;
+
+	/**
+	 * Construct an empty OffHeapLinkedList.
+	 *
+	 * @param codec converts items to and from their fixed-size records.
+	 * @throws IllegalArgumentException if a slab of such records would not fit
+	 *                                  in one ByteBuffer.
+	 */
+	public OffHeapLinkedList(ElementCodec<AnyType> codec) {
+		if (codec.size() < 0 || (long) (DATA + codec.size()) * SLAB_RECORDS > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("record size: " + codec.size());
+
+		this.codec = codec;
+		recordSize = DATA + codec.size();
+		clear();
+	}
+
+	/**
+	 * Construct an OffHeapLinkedList with same items as another Collection.
+	 */
+	public OffHeapLinkedList(ElementCodec<AnyType> codec, Collection<? extends AnyType> other) {
+		this(codec);
+		for (AnyType val : other)
+			add(val);
+	}
+
+	/**
+	 * Change the size of this collection to zero. The slabs are kept and
+	 * reused.
+	 */
+	public void clear() {
+		nextUnused = 0;
+		freeList = NIL;
+		allocate();
+		allocate();
+		setNext(beginMarker, endMarker);
+		setPrev(endMarker, beginMarker);
+
+		theSize = 0;
+		modCount++;
+	}
+
+	/**
+	 * Returns the number of items in this collection.
+	 *
+	 * @return the number of items in this collection.
+	 */
+	public int size() {
+		return theSize;
+	}
+
+	/**
+	 * Tests if some item is in this collection.
+	 *
+	 * @param x any object.
+	 * @return true if this collection contains an item equal to x.
+	 */
+	public boolean contains(Object x) {
+		return findPos(x) != NIL;
+	}
+
+	/**
+	 * Returns the handle of the first item matching x in this collection, or
+	 * NIL if not found.
+	 */
+	private int findPos(Object x) {
+		for (int p = next(beginMarker); p != endMarker; p = next(p))
+			if (x == null) {
+				if (data(p) == null)
+					return p;
+			} else if (x.equals(data(p)))
+				return p;
+
+		return NIL;
+	}
+
+	/**
+	 * Adds an item to this collection, at the end.
+	 *
+	 * @param x any object.
+	 * @return true.
+	 */
+	public boolean add(AnyType x) {
+		addLast(x);
+		return true;
+	}
+
+	/**
+	 * Adds an item to this collection, at specified position. Items at or after
+	 * that position are slid one position higher.
+	 *
+	 * @param x   any object.
+	 * @param idx position to add at.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(),
+	 *                                   inclusive.
+	 */
+	public void add(int idx, AnyType x) {
+		int p = getNode(idx, 0, size());
+		int prev = prev(p);
+		int newNode = allocate();
+
+		try {
+			codec.write(slab(newNode), offset(newNode) + DATA, x);
+		} catch (RuntimeException e) {
+			// The codec refused x; give the record back instead of losing it.
+			setNext(newNode, freeList);
+			freeList = newNode;
+			throw e;
+		}
+		setPrev(newNode, prev);
+		setNext(newNode, p);
+		setNext(prev, newNode);
+		setPrev(p, newNode);
+		theSize++;
+		modCount++;
+	}
+
+	/**
+	 * Adds all items of another collection, in order, at position idx. The
+	 * items are copied out first, so items may be this list.
+	 *
+	 * @param idx   position to add at.
+	 * @param items the items to add.
+	 * @return true if this list changed.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(),
+	 *                                   inclusive.
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean addAll(int idx, Collection<? extends AnyType> items) {
+		if (idx < 0 || idx > size())
+			throw new IndexOutOfBoundsException("addAll index: " + idx + "; size: " + size());
+
+		Object[] arr = items.toArray(new Object[items.size()]);
+		for (int i = 0; i < arr.length; i++)
+			add(idx + i, (AnyType) arr[i]);
+		return arr.length != 0;
+	}
+
+	/**
+	 * Adds an item to this collection, at front. Other items are slid one position
+	 * higher.
+	 *
+	 * @param x any object.
+	 */
+	public void addFirst(AnyType x) {
+		add(0, x);
+	}
+
+	/**
+	 * Adds an item to this collection, at end.
+	 *
+	 * @param x any object.
+	 */
+	public void addLast(AnyType x) {
+		add(size(), x);
+	}
+
+	/**
+	 * Writes the codec, the size, and then the bytes of each item as the codec
+	 * encoded them, instead of the slabs. The codec must be serializable.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(theSize);
+
+		byte[] bytes = new byte[codec.size()];
+		for (int p = next(beginMarker); p != endMarker; p = next(p)) {
+			ByteBuffer record = slab(p).duplicate();
+			record.position(offset(p) + DATA);
+			record.get(bytes);
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Reads what writeObject wrote, copying each item's bytes into a new record
+	 * linked in front of the endMarker.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		int size = in.readInt();
+		if (size < 0)
+			throw new StreamCorruptedException("negative size: " + size);
+		if (recordSize != DATA + codec.size())
+			throw new InvalidObjectException("record size " + recordSize + " does not match the codec");
+
+		slabs = new ByteBuffer[0];
+		clear();
+
+		byte[] bytes = new byte[codec.size()];
+		for (int i = 0; i < size; i++) {
+			in.readFully(bytes);
+			int p = allocate();
+			ByteBuffer record = slab(p).duplicate();
+			record.position(offset(p) + DATA);
+			record.put(bytes);
+
+			int last = prev(endMarker);
+			setPrev(p, last);
+			setNext(p, endMarker);
+			setNext(last, p);
+			setPrev(endMarker, p);
+		}
+		theSize = size;
+	}
+
+	/**
+	 * Returns the front item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType element() {
+		return getFirst();
+	}
+
+	/**
+	 * Returns the first item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType getFirst() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return data(next(beginMarker));
+	}
+
+	/**
+	 * Returns the last item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType getLast() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return data(prev(endMarker));
+	}
+
+	/**
+	 * Returns the item at position idx.
+	 *
+	 * @param idx the index to search in.
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 */
+	public AnyType get(int idx) {
+		return data(getNode(idx));
+	}
+
+	/**
+	 * Changes the item at position idx.
+	 *
+	 * @param idx    the index to change.
+	 * @param newVal the new value.
+	 * @return the old value.
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 */
+	public AnyType set(int idx, AnyType newVal) {
+		int p = getNode(idx);
+		AnyType oldVal = data(p);
+
+		codec.write(slab(p), offset(p) + DATA, newVal);
+		return oldVal;
+	}
+
+	/**
+	 * Removes the front item in the queue.
+	 *
+	 * @return the front item.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType remove() {
+		return removeFirst();
+	}
+
+	/**
+	 * Removes the first item in the list.
+	 *
+	 * @return the item was removed from the collection.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType removeFirst() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return removeNode(next(beginMarker));
+	}
+
+	/**
+	 * Removes the last item in the list.
+	 *
+	 * @return the item was removed from the collection.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType removeLast() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return removeNode(prev(endMarker));
+	}
+
+	/**
+	 * Removes an item from this collection.
+	 *
+	 * @param x any object.
+	 * @return true if this item was removed from the collection.
+	 */
+	public boolean remove(Object x) {
+		int pos = findPos(x);
+
+		if (pos == NIL)
+			return false;
+		else {
+			removeNode(pos);
+			return true;
+		}
+	}
+
+	/**
+	 * Removes an item from this collection.
+	 *
+	 * @param idx the index of the object.
+	 * @return the item was removed from the collection.
+	 */
+	public AnyType remove(int idx) {
+		return removeNode(getNode(idx));
+	}
+
+	/**
+	 * Gets the handle at position idx, which must range from 0 to size( )-1.
+	 */
+	private int getNode(int idx) {
+		return getNode(idx, 0, size() - 1);
+	}
+
+	/**
+	 * Gets the handle at position idx, which must range from lower to upper.
+	 *
+	 * @param idx   index to search at.
+	 * @param lower lowest valid index.
+	 * @param upper highest valid index.
+	 * @return handle of the record corrsponding to idx.
+	 * @throws IndexOutOfBoundsException if idx is not between lower and upper,
+	 *                                   inclusive.
+	 */
+	private int getNode(int idx, int lower, int upper) {
+		int p;
+
+		if (idx < lower || idx > upper)
+			throw new IndexOutOfBoundsException("getNode index: " + idx + "; size: " + size());
+
+		if (idx < size() / 2) {
+			p = next(beginMarker);
+			for (int i = 0; i < idx; i++)
+				p = next(p);
+		} else {
+			p = endMarker;
+			for (int i = size(); i > idx; i--)
+				p = prev(p);
+		}
+
+		return p;
+	}
+
+	/**
+	 * Unlinks record p, puts it on the free chain, and returns its item.
+	 */
+	private AnyType removeNode(int p) {
+		AnyType removed = data(p);
+
+		setPrev(next(p), prev(p));
+		setNext(prev(p), next(p));
+		setNext(p, freeList);
+		freeList = p;
+		theSize--;
+		modCount++;
+
+		return removed;
+	}
+
+	/**
+	 * Returns the handle of an unused record: the head of the free chain if
+	 * there is one, otherwise the next never used record, adding a slab when
+	 * the last one is full.
+	 */
+	private int allocate() {
+		if (freeList != NIL) {
+			int p = freeList;
+			freeList = next(p);
+			return p;
+		}
+
+		if (nextUnused == Integer.MAX_VALUE)
+			throw new IllegalStateException("OffHeapLinkedList is full");
+		if ((nextUnused >>> SLAB_SHIFT) == slabs.length) {
+			ByteBuffer[] old = slabs;
+			slabs = new ByteBuffer[old.length + 1];
+			System.arraycopy(old, 0, slabs, 0, old.length);
+			slabs[old.length] = ByteBuffer.allocateDirect(SLAB_RECORDS * recordSize);
+		}
+		return nextUnused++;
+	}
+
+	private ByteBuffer slab(int p) {
+		return slabs[p >>> SLAB_SHIFT];
+	}
+
+	private int offset(int p) {
+		return (p & SLAB_MASK) * recordSize;
+	}
+
+	private int prev(int p) {
+		return slab(p).getInt(offset(p) + PREV);
+	}
+
+	private int next(int p) {
+		return slab(p).getInt(offset(p) + NEXT);
+	}
+
+	private void setPrev(int p, int prev) {
+		slab(p).putInt(offset(p) + PREV, prev);
+	}
+
+	private void setNext(int p, int next) {
+		slab(p).putInt(offset(p) + NEXT, next);
+	}
+
+	private AnyType data(int p) {
+		return codec.read(slab(p), offset(p) + DATA);
+	}
+
+	/**
+	 * Obtains an Iterator object used to traverse the collection.
+	 *
+	 * @return an iterator positioned prior to the first element.
+	 */
+	public Iterator<AnyType> iterator() {
+		return new OffHeapListIterator(0);
+	}
+
+	/**
+	 * Obtains a ListIterator object used to traverse the collection
+	 * bidirectionally.
+	 *
+	 * @return an iterator positioned prior to the requested element.
+	 * @param idx the index to start the iterator. Use size() to do complete reverse
+	 *            traversal. Use 0 to do complete forward traversal.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(), inclusive.
+	 */
+	public ListIterator<AnyType> listIteraor(int idx) {
+		return new OffHeapListIterator(idx);
+	}
+
+	/**
+	 * This is the implementation of the OffHeapListIterator. It is the
+	 * LinkedListIterator of LinkedList, holding handles instead of nodes.
+	 */
+	private class OffHeapListIterator implements ListIterator<AnyType> {
+		private int current;
+		private int lastVisited = NIL;
+		private boolean lastMoveWasPrev = false;
+		private int expectedModCount = modCount;
+
+		public OffHeapListIterator(int idx) {
+			current = getNode(idx, 0, size());
+		}
+
+		public boolean hasNext() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			return current != endMarker;
+		}
+
+		public AnyType next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+
+			AnyType nextItem = data(current);
+			lastVisited = current;
+			current = OffHeapLinkedList.this.next(current);
+			lastMoveWasPrev = false;
+			return nextItem;
+		}
+
+		public void remove() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			if (lastVisited == NIL)
+				throw new IllegalStateException();
+
+			if (lastMoveWasPrev)
+				current = OffHeapLinkedList.this.next(current);
+			removeNode(lastVisited);
+			lastVisited = NIL;
+			expectedModCount++;
+		}
+
+		public boolean hasPrevious() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			return current != OffHeapLinkedList.this.next(beginMarker);
+		}
+
+		public AnyType previous() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			if (!hasPrevious())
+				throw new NoSuchElementException();
+
+			current = prev(current);
+			lastVisited = current;
+			lastMoveWasPrev = true;
+			return data(current);
+		}
+	}
+
+}
@@ -0,0 +1,625 @@
+package doublylinkedlist;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * = unrolled linked lists =
+ *
+ * - In LinkedList every item gets its own Node, with a data, prev and next link.
+ * - For a long list of small items, most of the memory is spent on links and object headers,
+ *   and a traversal jumps to a new, possibly distant, object for every single item.
+ *
+ * - An unrolled linked list stores several items in each node, in a small array.
+ * - The nodes are still doubly linked, with a beginMarker and an endMarker,
+ *   so everything we know about the doubly linked list still applies,
+ *   just one level up.
+ *
+ *     beginMarker <-> [a b c d] <-> [e f] <-> [g h i] <-> endMarker
+ *
+ * - A traversal now walks through an array most of the time,
+ *   and only follows a link once per node.
+ *
+ * add()
+ * - If the node where the item belongs is full, it is split into 2 half full nodes.
+ * - Appending at the very end (or the very front) of a full node starts a new node instead,
+ *   so that a list built by add is made of full nodes.
+ *
+ * remove()
+ * - If a node becomes less than half full, we try to merge it with the node after it.
+ * - A node that becomes empty is unlinked.
+ *
+ * getNode()
+ * - To find position idx we skip whole nodes, subtracting their counts,
+ *   from the front or from the back, whichever is closer.
+ *
+ * - The iterator keeps a node and an offset into it, plus the logical index,
+ *   and is fail-fast exactly like the LinkedList iterator.
+ *
+ */
+
+/**
+ * UnrolledLinkedList class implements a doubly-linked list that stores
+ * several items per node.
+ */
+public class UnrolledLinkedList<AnyType> extends AbstractCollection<AnyType> implements List<AnyType>, Queue<AnyType> {
+
+	private static final int NODE_CAPACITY = 32;
+
+	private int theSize;
+	private Chunk<AnyType> beginMarker;
+	private Chunk<AnyType> endMarker;
+	private int modCount = 0;
+
+	// Offset inside the node returned by the last call to getNode.
+	private int nodeOffset;
+
+	/**
+	 * Construct an empty UnrolledLinkedList.
+	 */
+	public UnrolledLinkedList() {
+		clear();
+	}
+
+	/**
+	 * Construct an UnrolledLinkedList with same items as another Collection.
+	 */
+	public UnrolledLinkedList(Collection<? extends AnyType> other) {
+		clear();
+		for (AnyType val : other)
+			add(val);
+	}
+
+	/**
+	 * Change the size of this collection to zero.
+	 */
+	public void clear() {
+		beginMarker = new Chunk<AnyType>(0, null, null);
+		endMarker = new Chunk<AnyType>(0, beginMarker, null);
+		beginMarker.next = endMarker;
+
+		theSize = 0;
+		modCount++;
+	}
+
+	/**
+	 * Returns the number of items in this collection.
+	 *
+	 * @return the number of items in this collection.
+	 */
+	public int size() {
+		return theSize;
+	}
+
+	/**
+	 * Tests if some item is in this collection.
+	 *
+	 * @param x any object.
+	 * @return true if this collection contains an item equal to x.
+	 */
+	public boolean contains(Object x) {
+		for (Chunk<AnyType> p = beginMarker.next; p != endMarker; p = p.next)
+			if (p.indexOf(x) >= 0)
+				return true;
+
+		return false;
+	}
+
+	/**
+	 * Adds an item to this collection, at the end.
+	 *
+	 * @param x any object.
+	 * @return true.
+	 */
+	public boolean add(AnyType x) {
+		addLast(x);
+		return true;
+	}
+
+	/**
+	 * Adds an item to this collection, at specified position. Items at or after
+	 * that position are slid one position higher.
+	 *
+	 * @param x   any object.
+	 * @param idx position to add at.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(),
+	 *                                   inclusive.
+	 */
+	public void add(int idx, AnyType x) {
+		Chunk<AnyType> p = getNode(idx, 0, size());
+		insert(p, nodeOffset, x);
+	}
+
+	/**
+	 * Adds all items of another collection, in order, at position idx. The
+	 * items are copied out first, so items may be this list.
+	 *
+	 * @param idx   position to add at.
+	 * @param items the items to add.
+	 * @return true if this list changed.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(),
+	 *                                   inclusive.
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean addAll(int idx, Collection<? extends AnyType> items) {
+		if (idx < 0 || idx > size())
+			throw new IndexOutOfBoundsException("addAll index: " + idx + "; size: " + size());
+
+		Object[] arr = items.toArray(new Object[items.size()]);
+		for (int i = 0; i < arr.length; i++)
+			add(idx + i, (AnyType) arr[i]);
+		return arr.length != 0;
+	}
+
+	/**
+	 * Adds an item to this collection, at front. Other items are slid one position
+	 * higher.
+	 *
+	 * @param x any object.
+	 */
+	public void addFirst(AnyType x) {
+		insert(beginMarker.next, 0, x);
+	}
+
+	/**
+	 * Adds an item to this collection, at end.
+	 *
+	 * @param x any object.
+	 */
+	public void addLast(AnyType x) {
+		Chunk<AnyType> last = endMarker.prev;
+		insert(last, last.count, x);
+	}
+
+	/**
+	 * Returns the front item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType element() {
+		return getFirst();
+	}
+
+	/**
+	 * Returns the first item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType getFirst() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return beginMarker.next.get(0);
+	}
+
+	/**
+	 * Returns the last item in the list.
+	 *
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType getLast() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		Chunk<AnyType> last = endMarker.prev;
+		return last.get(last.count - 1);
+	}
+
+	/**
+	 * Returns the item at position idx.
+	 *
+	 * @param idx the index to search in.
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 */
+	public AnyType get(int idx) {
+		Chunk<AnyType> p = getNode(idx);
+		return p.get(nodeOffset);
+	}
+
+	/**
+	 * Changes the item at position idx.
+	 *
+	 * @param idx    the index to change.
+	 * @param newVal the new value.
+	 * @return the old value.
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 */
+	public AnyType set(int idx, AnyType newVal) {
+		Chunk<AnyType> p = getNode(idx);
+		AnyType oldVal = p.get(nodeOffset);
+
+		p.items[nodeOffset] = newVal;
+		return oldVal;
+	}
+
+	/**
+	 * Removes the front item in the queue.
+	 *
+	 * @return the front item.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType remove() {
+		return removeFirst();
+	}
+
+	/**
+	 * Removes the first item in the list.
+	 *
+	 * @return the item was removed from the collection.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType removeFirst() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		return remove(beginMarker.next, 0);
+	}
+
+	/**
+	 * Removes the last item in the list.
+	 *
+	 * @return the item was removed from the collection.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public AnyType removeLast() {
+		if (isEmpty())
+			throw new NoSuchElementException();
+		Chunk<AnyType> last = endMarker.prev;
+		return remove(last, last.count - 1);
+	}
+
+	/**
+	 * Removes an item from this collection.
+	 *
+	 * @param x any object.
+	 * @return true if this item was removed from the collection.
+	 */
+	public boolean remove(Object x) {
+		for (Chunk<AnyType> p = beginMarker.next; p != endMarker; p = p.next) {
+			int offset = p.indexOf(x);
+			if (offset >= 0) {
+				remove(p, offset);
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Removes an item from this collection.
+	 *
+	 * @param idx the index of the object.
+	 * @return the item was removed from the collection.
+	 */
+	public AnyType remove(int idx) {
+		Chunk<AnyType> p = getNode(idx);
+		return remove(p, nodeOffset);
+	}
+
+	/**
+	 * Obtains a primitive array view of the collection.
+	 *
+	 * @return the primitive array view.
+	 */
+	public Object[] toArray() {
+		return copyInto(new Object[size()]);
+	}
+
+	/**
+	 * Obtains a primitive array view of the collection.
+	 *
+	 * @param arr the array to fill, if it is large enough.
+	 * @return the primitive array view.
+	 */
+	@SuppressWarnings("unchecked")
+	public <OtherType> OtherType[] toArray(OtherType[] arr) {
+		if (arr.length < theSize)
+			arr = (OtherType[]) java.lang.reflect.Array.newInstance(arr.getClass().getComponentType(), theSize);
+		else if (theSize < arr.length)
+			arr[theSize] = null;
+
+		copyInto(arr);
+		return arr;
+	}
+
+	/**
+	 * Copies every item, in order, to the front of arr, one node at a time.
+	 */
+	private <OtherType> OtherType[] copyInto(OtherType[] arr) {
+		int i = 0;
+		for (Chunk<AnyType> p = beginMarker.next; p != endMarker; p = p.next) {
+			System.arraycopy(p.items, 0, arr, i, p.count);
+			i += p.count;
+		}
+
+		return arr;
+	}
+
+	/**
+	 * Gets the node holding position idx, which must range from 0 to size( )-1.
+	 * The offset of idx inside that node is left in nodeOffset.
+	 */
+	private Chunk<AnyType> getNode(int idx) {
+		return getNode(idx, 0, size() - 1);
+	}
+
+	/**
+	 * Gets the node holding position idx, which must range from lower to upper.
+	 * The offset of idx inside that node is left in nodeOffset. For idx ==
+	 * size() this is the last node, with an offset equal to its count.
+	 *
+	 * @param idx   index to search at.
+	 * @param lower lowest valid index.
+	 * @param upper highest valid index.
+	 * @return internal node holding idx.
+	 * @throws IndexOutOfBoundsException if idx is not between lower and upper,
+	 *                                   inclusive.
+	 */
+	private Chunk<AnyType> getNode(int idx, int lower, int upper) {
+		Chunk<AnyType> p;
+
+		if (idx < lower || idx > upper)
+			throw new IndexOutOfBoundsException("getNode index: " + idx + "; size: " + size());
+
+		if (idx < size() / 2) {
+			p = beginMarker.next;
+			while (idx >= p.count) {
+				idx -= p.count;
+				p = p.next;
+			}
+		} else {
+			int start = size();
+			p = endMarker;
+			do {
+				p = p.prev;
+				start -= p.count;
+			} while (start > idx);
+			idx -= start;
+		}
+
+		nodeOffset = idx;
+		return p;
+	}
+
+	/**
+	 * Inserts x at position offset of node p, splitting p if it is full.
+	 * p may be the endMarker (or beginMarker) only when the list is empty.
+	 */
+	private void insert(Chunk<AnyType> p, int offset, AnyType x) {
+		if (p == endMarker || p == beginMarker) {
+			p = new Chunk<AnyType>(NODE_CAPACITY, beginMarker, endMarker);
+			beginMarker.next = p;
+			endMarker.prev = p;
+			offset = 0;
+		} else if (p.count == NODE_CAPACITY) {
+			if (offset == NODE_CAPACITY) {
+				p = linkAfter(p);
+				offset = 0;
+			} else if (offset == 0) {
+				p = linkAfter(p.prev);
+			} else {
+				Chunk<AnyType> newNode = linkAfter(p);
+				int half = NODE_CAPACITY / 2;
+				System.arraycopy(p.items, half, newNode.items, 0, NODE_CAPACITY - half);
+				java.util.Arrays.fill(p.items, half, NODE_CAPACITY, null);
+				newNode.count = NODE_CAPACITY - half;
+				p.count = half;
+
+				if (offset > half) {
+					p = newNode;
+					offset -= half;
+				}
+			}
+		}
+
+		System.arraycopy(p.items, offset, p.items, offset + 1, p.count - offset);
+		p.items[offset] = x;
+		p.count++;
+		theSize++;
+		modCount++;
+	}
+
+	/**
+	 * Creates an empty node and links it after p.
+	 */
+	private Chunk<AnyType> linkAfter(Chunk<AnyType> p) {
+		Chunk<AnyType> newNode = new Chunk<AnyType>(NODE_CAPACITY, p, p.next);
+		p.next.prev = newNode;
+		p.next = newNode;
+		return newNode;
+	}
+
+	/**
+	 * Removes the item at position offset of node p. An emptied node is
+	 * unlinked, and a node that falls under half full absorbs its successor if
+	 * both fit in one node.
+	 *
+	 * @return the item was removed from the collection.
+	 */
+	private AnyType remove(Chunk<AnyType> p, int offset) {
+		AnyType removed = p.get(offset);
+
+		System.arraycopy(p.items, offset + 1, p.items, offset, p.count - offset - 1);
+		p.items[--p.count] = null;
+		theSize--;
+		modCount++;
+
+		if (p.count == 0) {
+			unlink(p);
+		} else if (p.count < NODE_CAPACITY / 2) {
+			Chunk<AnyType> succ = p.next;
+			if (succ != endMarker && p.count + succ.count <= NODE_CAPACITY) {
+				System.arraycopy(succ.items, 0, p.items, p.count, succ.count);
+				p.count += succ.count;
+				unlink(succ);
+			}
+		}
+
+		return removed;
+	}
+
+	/**
+	 * Unlinks node p from the chain.
+	 */
+	private void unlink(Chunk<AnyType> p) {
+		p.next.prev = p.prev;
+		p.prev.next = p.next;
+	}
+
+	/**
+	 * Obtains an Iterator object used to traverse the collection.
+	 *
+	 * @return an iterator positioned prior to the first element.
+	 */
+	public Iterator<AnyType> iterator() {
+		return new UnrolledListIterator(0);
+	}
+
+	/**
+	 * Obtains a ListIterator object used to traverse the collection
+	 * bidirectionally.
+	 *
+	 * @return an iterator positioned prior to the requested element.
+	 * @param idx the index to start the iterator. Use size() to do complete reverse
+	 *            traversal. Use 0 to do complete forward traversal.
+	 * @throws IndexOutOfBoundsException if idx is not between 0 and size(), inclusive.
+	 */
+	public ListIterator<AnyType> listIteraor(int idx) {
+		return new UnrolledListIterator(idx);
+	}
+
+	/**
+	 * The node of an unrolled list: a small array of items plus the usual
+	 * prev and next links. The markers are nodes with no room.
+	 */
+	private static class Chunk<AnyType> {
+		Object[] items;
+		int count;
+		Chunk<AnyType> prev;
+		Chunk<AnyType> next;
+
+		Chunk(int capacity, Chunk<AnyType> p, Chunk<AnyType> n) {
+			items = new Object[capacity];
+			prev = p;
+			next = n;
+		}
+
+		@SuppressWarnings("unchecked")
+		AnyType get(int offset) {
+			return (AnyType) items[offset];
+		}
+
+		/**
+		 * Returns the offset of the first item matching x, or -1.
+		 */
+		int indexOf(Object x) {
+			if (x == null) {
+				for (int i = 0; i < count; i++)
+					if (items[i] == null)
+						return i;
+			} else {
+				for (int i = 0; i < count; i++)
+					if (x.equals(items[i]))
+						return i;
+			}
+
+			return -1;
+		}
+	}
+
+	/**
+	 * This is the implementation of the UnrolledListIterator. It keeps the node
+	 * and offset of the item to be returned by next, along with its logical
+	 * index.
+	 */
+	private class UnrolledListIterator implements ListIterator<AnyType> {
+		private Chunk<AnyType> current;
+		private int offset;
+		private int index;
+		private Chunk<AnyType> lastVisited = null;
+		private int lastOffset;
+		private boolean lastMoveWasPrev = false;
+		private int expectedModCount = modCount;
+
+		public UnrolledListIterator(int idx) {
+			current = getNode(idx, 0, size());
+			offset = nodeOffset;
+			index = idx;
+			if (offset == current.count && current != endMarker) {
+				current = current.next;
+				offset = 0;
+			}
+		}
+
+		public boolean hasNext() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			return index < theSize;
+		}
+
+		public AnyType next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+
+			AnyType nextItem = current.get(offset);
+			lastVisited = current;
+			lastOffset = offset;
+			if (++offset == current.count) {
+				current = current.next;
+				offset = 0;
+			}
+			index++;
+			lastMoveWasPrev = false;
+			return nextItem;
+		}
+
+		public void remove() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			if (lastVisited == null)
+				throw new IllegalStateException();
+
+			Chunk<AnyType> succ = lastVisited.next;
+			UnrolledLinkedList.this.remove(lastVisited, lastOffset);
+
+			// The item after the removed one now sits at the removed one's place.
+			if (lastVisited.count == 0) {
+				current = succ;
+				offset = 0;
+			} else if (lastOffset < lastVisited.count) {
+				current = lastVisited;
+				offset = lastOffset;
+			} else {
+				current = lastVisited.next;
+				offset = 0;
+			}
+			if (!lastMoveWasPrev)
+				index--;
+			lastVisited = null;
+			expectedModCount++;
+		}
+
+		public boolean hasPrevious() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			return index > 0;
+		}
+
+		public AnyType previous() {
+			if (expectedModCount != modCount)
+				throw new ConcurrentModificationException();
+			if (!hasPrevious())
+				throw new NoSuchElementException();
+
+			if (offset == 0) {
+				current = current.prev;
+				offset = current.count;
+			}
+			offset--;
+			index--;
+			lastVisited = current;
+			lastOffset = offset;
+			lastMoveWasPrev = true;
+			return current.get(offset);
+		}
+	}
+
+}
@@ -0,0 +1,19 @@
+package linkedlistpractice3;
+// Basic node stored in an IntLinkedList; the element is a plain int
+
+public class IntListNode {
+	
+	public int element;
+	public IntListNode next;
+	
+	// Constructor
+	public IntListNode(int theElement) {
+		this(theElement, null);
+	}
+	
+	public IntListNode(int theElement, IntListNode n) {
+		element = theElement;
+		next = n;
+	}
+
+}
@@ -0,0 +1,151 @@
+package linkedlistpractice3;
+
+import java.util.NoSuchElementException;
+
+// LongLinkedList class
+//
+// The LinkedList class, storing long items directly in the nodes,
+// so no item is ever boxed.
+//
+// Construction: with no initializer
+// Access is via LongLinkedListIterator class
+//
+// Public operations:
+// boolean isEmpty()                      -----> Return true if empty; else false
+// void makeEmpty()                       -----> Remove all items
+// LongLinkedListIterator zeroth()        -----> Return position to prior to first
+// LongLinkedListIterator first()         -----> Return first position
+// void insert(x, p)                      -----> Insert x after current iterator position p
+// void remove (x)                        -----> Remove x
+// long removeFirst()                     -----> Remove and return first item
+// boolean contains(x)                    -----> Return true if x is in the list
+// LongLinkedListIterator find(x)         -----> Return position that views x
+// LongLinkedListIterator findPrevious(x) -----> Return position prior to x
+//
+// Errors:
+// removeFirst throws NoSuchElementException on an empty list
+
+
+public class LongLinkedList {
+	
+	private LongListNode header;
+	
+	/**
+	 * Construct the list	
+	 */
+	public LongLinkedList() {
+		header = new LongListNode(0);
+	}
+	
+	/**
+	 * Test if the list is logically empty.
+	 * @return true if empty, false otherwise
+	 */
+	public boolean isEmpty() {
+		return header.next == null;
+	}
+	
+	/**
+	 * Make the list logically empty.
+	 */
+	public void makeEmpty() {
+		header.next = null;
+	}
+	
+	/**
+	 * Return an iterator representing the header node.
+	 */
+	public LongLinkedListIterator zeroth(){
+		return new LongLinkedListIterator(header);
+	}
+	
+	/**
+	 * Return an iterator representing the first node in the list.
+	 * This operation is valid for empty lists.
+	 */
+	public LongLinkedListIterator first(){
+		return new LongLinkedListIterator(header.next);
+	}
+	
+	/**
+	 * Insert after p.
+	 * @param x the item to insert.
+	 * @param p the position prior to the newly inserted item
+	 */
+	public void insert(long x, LongLinkedListIterator p) {
+		if(p != null && p.current != null)
+			p.current.next = new LongListNode(x, p.current.next);
+	}
+	
+	/**
+	 * Return iterator corresponding to the first node containing an item.
+	 * @param x the item to search for
+	 * @return an iterator; iterator is not valid if item is not found
+	 */
+	public LongLinkedListIterator find(long x){
+		return new LongLinkedListIterator(findNode(x));
+	}
+	
+	/**
+	 * Test if an item is in the list.
+	 * @param x the item to search for
+	 * @return true if x is found
+	 */
+	public boolean contains(long x) {
+		return findNode(x) != null;
+	}
+	
+	/**
+	 * Return the first node containing x, or null.
+	 */
+	private LongListNode findNode(long x) {
+		LongListNode itr = header.next;
+		
+		while(itr != null && itr.element != x)
+			itr = itr.next;
+		
+		return itr;
+	}
+	
+	/**
+	 * Return iterator prior to the first node containing an item.
+	 * find the node before x
+	 * @param x the item to search for
+	 * @return appropriate iterator if the item is found. Otherwise, the iterator corresponding to the last element in the list is returned.
+	 */
+	public LongLinkedListIterator findPrevious(long x){
+		
+		LongListNode itr = header;
+		
+		while(itr.next != null && itr.next.element != x)
+			itr = itr.next;
+		
+		return new LongLinkedListIterator(itr);
+	}
+	
+	/**
+	 * Remove the first occurrence of an item.
+	 * @param x the item to remove
+	 */
+	public void remove(long x) {
+		LongLinkedListIterator p = findPrevious(x);
+		
+		if(p.current.next != null)
+			p.current.next = p.current.next.next; // Bypass deleted node
+	}
+	
+	/**
+	 * Remove the first item in the list.
+	 * @return the item that was removed
+	 * @throws NoSuchElementException if the list is empty
+	 */
+	public long removeFirst() {
+		if(isEmpty())
+			throw new NoSuchElementException();
+		
+		long first = header.next.element;
+		header.next = header.next.next; // Bypass deleted node
+		return first;
+	}
+
+}
@@ -0,0 +1,57 @@
+package linkedlistpractice3;
+
+import java.util.NoSuchElementException;
+
+// LongLinkedListIterator class; maintains "current position"
+// in a LongLinkedList
+//
+// Construction: Package visible only, with a LongListNode
+// 
+// Public operations:
+// void advance()     -----> Advance
+// boolean isValid()  -----> True if at valid position in list
+// long retrieve()    -----> Return item in current position
+
+
+public class LongLinkedListIterator {
+	
+	LongListNode current; // Current position
+	
+	/**
+	 * Construct the list iterator
+	 * @param theNode any node in the linked list.
+	 */
+	LongLinkedListIterator(LongListNode theNode){
+		current = theNode;
+	}
+	
+	/**
+	 * Test if the current position is a valid position in the list.
+	 * @return true if the current position is valid.
+	 */
+	public boolean isValid() {
+		return current != null;
+	}
+	
+	/**
+	 * Return the item stored in the current position.
+	 * A long cannot be null, so an invalid position is an error here.
+	 * @return the stored item.
+	 * @throws NoSuchElementException if the current position is not in the list.
+	 */
+	public long retrieve() {
+		if(!isValid())
+			throw new NoSuchElementException();
+		return current.element; 
+	}
+	
+	/**
+	 * Advance the current position to the next node in the list.
+	 * If the current position is null, then do nothing.
+	 */
+	public void advance() {
+		if(isValid())
+			current = current.next;
+	}
+
+}
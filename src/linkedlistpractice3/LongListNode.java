@@ -0,0 +1,19 @@
+package linkedlistpractice3;
+// Basic node stored in a LongLinkedList; the element is a plain long
+
+public class LongListNode {
+	
+	public long element;
+	public LongListNode next;
+	
+	// Constructor
+	public LongListNode(long theElement) {
+		this(theElement, null);
+	}
+	
+	public LongListNode(long theElement, LongListNode n) {
+		element = theElement;
+		next = n;
+	}
+
+}
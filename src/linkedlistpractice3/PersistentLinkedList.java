@@ -0,0 +1,234 @@
+package linkedlistpractice3;
+
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+
+/**
+ * = persistent lists =
+ * 
+ * - Taking a read-only snapshot of a LinkedList means copying every node,
+ *   because a later insert or remove changes the nodes in place.
+ * 
+ * - A persistent list never changes a node once it is built.
+ * - Instead, insert and remove return a new version of the list,
+ *   and the old version stays exactly as it was.
+ * 
+ * - The new version shares every node after the change with the old one;
+ *   only the nodes in front of the change are copied.
+ * 
+ *     old:  () -> a -> b -> c -> d -> null
+ *                          ^
+ *                          |
+ *     new:  () -> a'-> x --+
+ *     
+ *     - Inserting x after a copies a only; b, c and d are shared.
+ * 
+ * - Changes at the front copy nothing and take O(1) time;
+ *   a change at position k copies k nodes.
+ * - Each version still has its own header node,
+ *   so the header-node code of LinkedList carries over unchanged.
+ * 
+ * - A version is itself the snapshot: keeping a reference to it takes O(1) time.
+ * - Since all fields are final, a version can be handed to other threads
+ *   and read without any lock.
+ * 
+ * - Positions come from one version and only make sense for that version;
+ *   passing a position of another version to insert is an error.
+ *   
+ */
+
+// PersistentLinkedList class
+//
+// The LinkedList class, but immutable: insert and remove return a new version
+// that shares the unchanged tail with the old one.
+//
+// Construction: with no initializer, or copyOf a LinkedList
+// Access is via PersistentLinkedListIterator class
+//
+// Public operations:
+// boolean isEmpty()                            -----> Return true if empty; else false
+// int size()                                   -----> Return the number of items
+// PersistentLinkedList makeEmpty()             -----> Return an empty version
+// PersistentLinkedListIterator zeroth()        -----> Return position to prior to first
+// PersistentLinkedListIterator first()         -----> Return first position
+// PersistentLinkedList insert(x, p)            -----> Return version with x after position p
+// PersistentLinkedList remove (x)              -----> Return version without the first x
+// PersistentLinkedList removeFirst()           -----> Return version without the first item
+// PersistentLinkedListIterator find(x)         -----> Return position that views x
+// PersistentLinkedListIterator findPrevious(x) -----> Return position prior to x
+//
+// Errors:
+// insert throws IllegalArgumentException for a position of another version
+// removeFirst throws NoSuchElementException on an empty list
+
+
+public class PersistentLinkedList<AnyType> {
+	
+	private final PersistentListNode<AnyType> header;
+	private final int theSize;
+	
+	/**
+	 * Construct the empty list	
+	 */
+	public PersistentLinkedList() {
+		this(null, 0);
+	}
+	
+	private PersistentLinkedList(PersistentListNode<AnyType> first, int size) {
+		header = new PersistentListNode<AnyType>(null, first);
+		theSize = size;
+	}
+	
+	/**
+	 * Return a persistent list with the same items as a LinkedList.
+	 * This copies every node once; later versions share them.
+	 * @param other the list to copy.
+	 */
+	public static <AnyType> PersistentLinkedList<AnyType> copyOf(LinkedList<AnyType> other) {
+		ArrayList<AnyType> items = new ArrayList<AnyType>();
+		for(LinkedListIterator<AnyType> itr = other.first(); itr.isValid(); itr.advance())
+			items.add(itr.retrieve());
+		
+		PersistentListNode<AnyType> first = null;
+		for(int i = items.size() - 1; i >= 0; i--)
+			first = new PersistentListNode<AnyType>(items.get(i), first);
+		
+		return new PersistentLinkedList<AnyType>(first, items.size());
+	}
+	
+	/**
+	 * Test if the list is logically empty.
+	 * @return true if empty, false otherwise
+	 */
+	public boolean isEmpty() {
+		return header.next == null;
+	}
+	
+	/**
+	 * Return the number of items in the list.
+	 */
+	public int size() {
+		return theSize;
+	}
+	
+	/**
+	 * Return a logically empty version of the list.
+	 */
+	public PersistentLinkedList<AnyType> makeEmpty() {
+		return isEmpty() ? this : new PersistentLinkedList<AnyType>();
+	}
+	
+	/**
+	 * Return an iterator representing the header node.
+	 */
+	public PersistentLinkedListIterator<AnyType> zeroth(){
+		return new PersistentLinkedListIterator<AnyType>(header);
+	}
+	
+	/**
+	 * Return an iterator representing the first node in the list.
+	 * This operation is valid for empty lists.
+	 */
+	public PersistentLinkedListIterator<AnyType> first(){
+		return new PersistentLinkedListIterator<AnyType>(header.next);
+	}
+	
+	/**
+	 * Return a new version with x inserted after p.
+	 * Nodes after p are shared; nodes up to p are copied.
+	 * @param x the item to insert.
+	 * @param p the position prior to the newly inserted item
+	 * @return the new version, or this list if p is not valid.
+	 * @throws IllegalArgumentException if p is a position in another version.
+	 */
+	public PersistentLinkedList<AnyType> insert(AnyType x, PersistentLinkedListIterator<AnyType> p) {
+		if(p == null || p.current == null)
+			return this;
+		
+		PersistentListNode<AnyType> first;
+		if(p.current == header)
+			first = new PersistentListNode<AnyType>(x, header.next);
+		else
+			first = copyBefore(p.current,
+					new PersistentListNode<AnyType>(p.current.element,
+							new PersistentListNode<AnyType>(x, p.current.next)));
+		
+		return new PersistentLinkedList<AnyType>(first, theSize + 1);
+	}
+	
+	/**
+	 * Return iterator corresponding to the first node containing an item.
+	 * @param x the item to search for
+	 * @return an iterator; iterator is not valid if item is not found
+	 */
+	public PersistentLinkedListIterator<AnyType> find(AnyType x){
+		PersistentListNode<AnyType> itr = header.next;
+		
+		while(itr != null && !itr.element.equals(x))
+			itr = itr.next;
+		
+		return new PersistentLinkedListIterator<AnyType>(itr);
+	}
+	
+	/**
+	 * Return iterator prior to the first node containing an item.
+	 * @param x the item to search for
+	 * @return appropriate iterator if the item is found. Otherwise, the iterator corresponding to the last element in the list is returned.
+	 */
+	public PersistentLinkedListIterator<AnyType> findPrevious(AnyType x){
+		PersistentListNode<AnyType> itr = header;
+		
+		while(itr.next != null && !itr.next.element.equals(x))
+			itr = itr.next;
+		
+		return new PersistentLinkedListIterator<AnyType>(itr);
+	}
+	
+	/**
+	 * Return a new version without the first occurrence of an item.
+	 * Nodes after it are shared; nodes before it are copied.
+	 * @param x the item to remove
+	 * @return the new version, or this list if x is not found.
+	 */
+	public PersistentLinkedList<AnyType> remove(AnyType x) {
+		PersistentListNode<AnyType> target = find(x).current;
+		
+		if(target == null)
+			return this;
+		
+		return new PersistentLinkedList<AnyType>(copyBefore(target, target.next), theSize - 1);
+	}
+	
+	/**
+	 * Return a new version without the first item, sharing all the other nodes.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public PersistentLinkedList<AnyType> removeFirst() {
+		if(isEmpty())
+			throw new NoSuchElementException();
+		
+		return new PersistentLinkedList<AnyType>(header.next.next, theSize - 1);
+	}
+	
+	/**
+	 * Copy the nodes from the first one up to, but not including, stop,
+	 * and link the last copy to rest.
+	 * @return the first node of the copy, which is rest if stop is the first node.
+	 * @throws IllegalArgumentException if stop is not in this list.
+	 */
+	private PersistentListNode<AnyType> copyBefore(PersistentListNode<AnyType> stop, PersistentListNode<AnyType> rest) {
+		ArrayList<AnyType> prefix = new ArrayList<AnyType>();
+		
+		for(PersistentListNode<AnyType> itr = header.next; itr != stop; itr = itr.next) {
+			if(itr == null)
+				throw new IllegalArgumentException("position is not in this list");
+			prefix.add(itr.element);
+		}
+		
+		for(int i = prefix.size() - 1; i >= 0; i--)
+			rest = new PersistentListNode<AnyType>(prefix.get(i), rest);
+		
+		return rest;
+	}
+
+}
@@ -0,0 +1,51 @@
+package linkedlistpractice3;
+
+// PersistentLinkedListIterator class; maintains "current position"
+// in one version of a PersistentLinkedList
+//
+// Construction: Package visible only, with a PersistentListNode
+// 
+// Public operations:
+// void advance()     -----> Advance
+// boolean isValid()  -----> True if at valid position in list
+// AnyType retrieve() -----> Return item in current position
+
+
+public class PersistentLinkedListIterator<AnyType> {
+	
+	PersistentListNode<AnyType> current; // Current position
+	
+	/**
+	 * Construct the list iterator
+	 * @param theNode any node in the linked list.
+	 */
+	PersistentLinkedListIterator(PersistentListNode<AnyType> theNode){
+		current = theNode;
+	}
+	
+	/**
+	 * Test if the current position is a valid position in the list.
+	 * @return true if the current position is valid.
+	 */
+	public boolean isValid() {
+		return current != null;
+	}
+	
+	/**
+	 * Return the item stored in the current position.
+	 * @return the stored item or null if the current position is not in the list.
+	 */
+	public AnyType retrieve() {
+		return isValid() ? current.element : null; 
+	}
+	
+	/**
+	 * Advance the current position to the next node in the list.
+	 * If the current position is null, then do nothing.
+	 */
+	public void advance() {
+		if(isValid())
+			current = current.next;
+	}
+
+}
@@ -0,0 +1,21 @@
+package linkedlistpractice3;
+// Basic node stored in a PersistentLinkedList
+// Both fields are final, so a node never changes once built and
+// can be shared by many versions of a list, and by many threads.
+
+public class PersistentListNode<AnyType> {
+	
+	public final AnyType element;
+	public final PersistentListNode<AnyType> next;
+	
+	// Constructor
+	public PersistentListNode(AnyType theElement) {
+		this(theElement, null);
+	}
+	
+	public PersistentListNode(AnyType theElement, PersistentListNode<AnyType> n) {
+		element = theElement;
+		next = n;
+	}
+
+}